@@ -0,0 +1,280 @@
+package geometries;
+
+import geometries.BoundingVolumeHierarchy.Item;
+import geometries.BoundingVolumeHierarchy.Node;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static geometries.BoundingVolumeHierarchy.INTERSECTION_COST;
+import static geometries.BoundingVolumeHierarchy.MAX_LEAF_SIZE;
+import static geometries.BoundingVolumeHierarchy.TRAVERSAL_COST;
+
+/**
+ * Parallel builder of a bounding volume hierarchy by the binned surface area heuristic.
+ * Instead of sorting the objects of a node on each axis, their box centers are
+ * distributed into a fixed amount of bins and only the bin boundaries are evaluated
+ * as split candidates. The two subtrees of a node are built as separate fork-join
+ * tasks.<br/>
+ * The split of a node depends only on the objects of the node, and every task works on
+ * its own range of the objects array, so the same scene always produces the same tree,
+ * regardless of the amount of threads.
+ */
+@SuppressWarnings("serial") // fork-join tasks are never serialized
+final class BinnedBvhBuilder extends RecursiveTask<Node> {
+    /** Amount of bins per axis */
+    private static final int BINS = 16;
+    /** Below this amount of objects a subtree is built in the current task */
+    private static final int PARALLEL_THRESHOLD = 1024;
+
+    /** The objects - each task reorders only its own range */
+    private final Item[] items;
+    /** Start of the range (included) */
+    private final int from;
+    /** End of the range (excluded) */
+    private final int to;
+
+    /**
+     * Creates a task building a subtree over a range of objects
+     * @param items the objects
+     * @param from  start of the range (included)
+     * @param to    end of the range (excluded)
+     */
+    private BinnedBvhBuilder(Item[] items, int from, int to) {
+        this.items = items;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Builds a tree over the objects on a dedicated fork-join pool
+     * @param items   the objects (at least one)
+     * @param threads the amount of threads of the pool
+     * @return the root of the tree
+     */
+    static Node build(Item[] items, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.invoke(new BinnedBvhBuilder(items, 0, items.length));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Override
+    protected Node compute() {
+        return build(items, from, to);
+    }
+
+    /**
+     * Builds a subtree over a range of objects, forking the subtrees of big nodes
+     * @param items the objects
+     * @param from  start of the range (included)
+     * @param to    end of the range (excluded)
+     * @return the root of the subtree
+     */
+    private static Node build(Item[] items, int from, int to) {
+        Node node = new Node(bounds(items, from, to));
+        int mid = split(items, from, to, node.box);
+        if (mid < 0) return BoundingVolumeHierarchy.makeLeaf(node, items, from, to);
+
+        if (to - from > PARALLEL_THRESHOLD) {
+            BinnedBvhBuilder left = new BinnedBvhBuilder(items, from, mid);
+            left.fork();
+            node.right = build(items, mid, to);
+            node.left = left.join();
+        } else {
+            node.left = build(items, from, mid);
+            node.right = build(items, mid, to);
+        }
+        return node;
+    }
+
+    /**
+     * Calculates the box of a range of objects
+     * @param items the objects
+     * @param from  start of the range (included)
+     * @param to    end of the range (excluded)
+     * @return the box that encloses the boxes of the objects
+     */
+    static BoundingBox bounds(Item[] items, int from, int to) {
+        double[] bounds = emptyBounds();
+        for (int i = from; i < to; ++i) {
+            BoundingBox box = items[i].box();
+            grow(bounds, box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ);
+        }
+        return new BoundingBox(bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5]);
+    }
+
+    /**
+     * Chooses the split of a range of objects by the binned surface area heuristic,
+     * and reorders the range accordingly
+     * @param items the objects
+     * @param from  start of the range (included)
+     * @param to    end of the range (excluded)
+     * @param box   the box of the range
+     * @return start of the right side, or -1 if the objects should stay together in a leaf
+     */
+    static int split(Item[] items, int from, int to, BoundingBox box) {
+        int n = to - from;
+        if (n == 1) return -1;
+        // bounds of the box centers
+        double[] centers = emptyBounds();
+        for (int i = from; i < to; ++i) {
+            double[] center = items[i].center();
+            grow(centers, center[0], center[1], center[2], center[0], center[1], center[2]);
+        }
+
+        double area = box.surfaceArea();
+        double invArea = area > 0 ? 1 / area : 0;
+        int bestAxis = -1;
+        int bestBin = -1;
+        double bestCost = Double.POSITIVE_INFINITY;
+        int[] counts = new int[BINS];
+        double[][] binBounds = new double[BINS][];
+        double[] rightAreas = new double[BINS];
+        int[] rightCounts = new int[BINS];
+        for (int axis = 0; axis < 3; ++axis) {
+            double min = centers[axis];
+            double extent = centers[axis + 3] - min;
+            if (extent <= 0) continue;
+
+            for (int b = 0; b < BINS; ++b) {
+                counts[b] = 0;
+                binBounds[b] = emptyBounds();
+            }
+            for (int i = from; i < to; ++i) {
+                int b = bin(items[i], axis, min, extent);
+                BoundingBox itemBox = items[i].box();
+                ++counts[b];
+                grow(binBounds[b], itemBox.minX, itemBox.minY, itemBox.minZ,
+                        itemBox.maxX, itemBox.maxY, itemBox.maxZ);
+            }
+
+            double[] acc = emptyBounds();
+            int count = 0;
+            for (int b = BINS - 1; b > 0; --b) {
+                acc = union(acc, binBounds[b]);
+                count += counts[b];
+                rightAreas[b] = area(acc);
+                rightCounts[b] = count;
+            }
+            acc = emptyBounds();
+            count = 0;
+            for (int b = 1; b < BINS; ++b) {
+                // split between bin b-1 and bin b
+                acc = union(acc, binBounds[b - 1]);
+                count += counts[b - 1];
+                if (count == 0 || rightCounts[b] == 0) continue;
+                double cost = TRAVERSAL_COST
+                        + INTERSECTION_COST * (area(acc) * count + rightAreas[b] * rightCounts[b]) * invArea;
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestBin = b;
+                }
+            }
+        }
+
+        if (bestAxis < 0) {
+            // all the box centers coincide - no split is better than another
+            return n <= MAX_LEAF_SIZE ? -1 : from + n / 2;
+        }
+        if (n <= MAX_LEAF_SIZE && INTERSECTION_COST * n <= bestCost) return -1;
+        return partition(items, from, to, bestAxis, bestBin, centers[bestAxis],
+                centers[bestAxis + 3] - centers[bestAxis]);
+    }
+
+    /**
+     * Moves the objects of the bins below the split bin to the start of the range
+     * @param items  the objects
+     * @param from   start of the range (included)
+     * @param to     end of the range (excluded)
+     * @param axis   the split axis
+     * @param split  the first bin of the right side
+     * @param min    minimal box center on the axis
+     * @param extent extent of the box centers on the axis
+     * @return start of the right side
+     */
+    private static int partition(Item[] items, int from, int to, int axis, int split, double min, double extent) {
+        int i = from;
+        int j = to - 1;
+        while (i <= j) {
+            if (bin(items[i], axis, min, extent) < split) {
+                ++i;
+            } else {
+                Item tmp = items[i];
+                items[i] = items[j];
+                items[j--] = tmp;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Finds the bin of an object
+     * @param item   the object
+     * @param axis   the axis
+     * @param min    minimal box center on the axis
+     * @param extent extent of the box centers on the axis
+     * @return the bin index
+     */
+    private static int bin(Item item, int axis, double min, double extent) {
+        return Math.min(BINS - 1, (int) (BINS * (item.center()[axis] - min) / extent));
+    }
+
+    /**
+     * Creates bounds that contain nothing
+     * @return {minX, minY, minZ, maxX, maxY, maxZ}
+     */
+    private static double[] emptyBounds() {
+        return new double[] {
+                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+    }
+
+    /**
+     * Grows bounds to contain a box
+     * @param bounds the bounds
+     * @param minX   minimal x of the box
+     * @param minY   minimal y of the box
+     * @param minZ   minimal z of the box
+     * @param maxX   maximal x of the box
+     * @param maxY   maximal y of the box
+     * @param maxZ   maximal z of the box
+     */
+    private static void grow(double[] bounds, double minX, double minY, double minZ,
+                             double maxX, double maxY, double maxZ) {
+        bounds[0] = Math.min(bounds[0], minX);
+        bounds[1] = Math.min(bounds[1], minY);
+        bounds[2] = Math.min(bounds[2], minZ);
+        bounds[3] = Math.max(bounds[3], maxX);
+        bounds[4] = Math.max(bounds[4], maxY);
+        bounds[5] = Math.max(bounds[5], maxZ);
+    }
+
+    /**
+     * Unites two bounds into new bounds
+     * @param a first bounds
+     * @param b second bounds
+     * @return the union
+     */
+    private static double[] union(double[] a, double[] b) {
+        double[] result = a.clone();
+        grow(result, b[0], b[1], b[2], b[3], b[4], b[5]);
+        return result;
+    }
+
+    /**
+     * Calculates the surface area of bounds
+     * @param bounds the bounds
+     * @return the surface area, 0 for empty bounds
+     */
+    private static double area(double[] bounds) {
+        double dx = bounds[3] - bounds[0];
+        double dy = bounds[4] - bounds[1];
+        double dz = bounds[5] - bounds[2];
+        if (dx < 0 || dy < 0 || dz < 0) return 0;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+}
@@ -0,0 +1,196 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+/**
+ * Axis-aligned bounding box (AABB) of an intersectable object.
+ * The box is described by its minimal and maximal coordinates on each axis.
+ * An unbounded object (e.g. an infinite plane) is described by {@link #INFINITE}.
+ */
+public class BoundingBox {
+    /** Tolerance used by the slab test so that flat boxes (e.g. of an axis-aligned triangle) are not missed */
+    private static final double EPSILON = 1e-9;
+
+    /** A box that contains the whole space - used for unbounded geometries */
+    public static final BoundingBox INFINITE = new BoundingBox(
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+    /** A box that contains nothing - used for empty collections of geometries */
+    public static final BoundingBox EMPTY = new BoundingBox(
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
+
+    /** Minimal x coordinate */
+    public final double minX;
+    /** Minimal y coordinate */
+    public final double minY;
+    /** Minimal z coordinate */
+    public final double minZ;
+    /** Maximal x coordinate */
+    public final double maxX;
+    /** Maximal y coordinate */
+    public final double maxY;
+    /** Maximal z coordinate */
+    public final double maxZ;
+
+    /**
+     * Constructs a box from its minimal and maximal coordinates.
+     *
+     * @param minX minimal x coordinate
+     * @param minY minimal y coordinate
+     * @param minZ minimal z coordinate
+     * @param maxX maximal x coordinate
+     * @param maxY maximal y coordinate
+     * @param maxZ maximal z coordinate
+     */
+    public BoundingBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    /**
+     * Constructs the smallest box that contains all the given points.
+     *
+     * @param points the points to be enclosed (at least one)
+     */
+    public BoundingBox(Point... points) {
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY, z0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY, z1 = Double.NEGATIVE_INFINITY;
+        for (Point p : points) {
+            x0 = Math.min(x0, p.getX());
+            y0 = Math.min(y0, p.getY());
+            z0 = Math.min(z0, p.getZ());
+            x1 = Math.max(x1, p.getX());
+            y1 = Math.max(y1, p.getY());
+            z1 = Math.max(z1, p.getZ());
+        }
+        minX = x0;
+        minY = y0;
+        minZ = z0;
+        maxX = x1;
+        maxY = y1;
+        maxZ = z1;
+    }
+
+    /**
+     * Checks whether the box is unbounded on any axis.
+     *
+     * @return true if the box is infinite, false otherwise
+     */
+    public boolean isInfinite() {
+        return minX == Double.NEGATIVE_INFINITY || minY == Double.NEGATIVE_INFINITY || minZ == Double.NEGATIVE_INFINITY
+                || maxX == Double.POSITIVE_INFINITY || maxY == Double.POSITIVE_INFINITY || maxZ == Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Checks whether the box contains nothing (e.g. the box of an empty collection).
+     *
+     * @return true if the box is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return minX > maxX || minY > maxY || minZ > maxZ;
+    }
+
+    /**
+     * Constructs the smallest box that contains both this box and another one.
+     *
+     * @param other the other box
+     * @return the union box
+     */
+    public BoundingBox union(BoundingBox other) {
+        return new BoundingBox(
+                Math.min(minX, other.minX), Math.min(minY, other.minY), Math.min(minZ, other.minZ),
+                Math.max(maxX, other.maxX), Math.max(maxY, other.maxY), Math.max(maxZ, other.maxZ));
+    }
+
+    /**
+     * Calculates the surface area of the box - used by the surface area heuristic.
+     *
+     * @return the surface area of the box
+     */
+    public double surfaceArea() {
+        double dx = maxX - minX;
+        double dy = maxY - minY;
+        double dz = maxZ - minZ;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Returns the center coordinate of the box on the given axis.
+     *
+     * @param axis 0 for x, 1 for y, 2 for z
+     * @return the center coordinate on the axis
+     */
+    public double center(int axis) {
+        return switch (axis) {
+            case 0 -> (minX + maxX) / 2;
+            case 1 -> (minY + maxY) / 2;
+            default -> (minZ + maxZ) / 2;
+        };
+    }
+
+    /**
+     * Slab test of a ray against the box.
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximal distance along the ray that is of interest
+     * @return the distance along the ray where it enters the box (0 if the ray head is inside the box),
+     * or {@link Double#POSITIVE_INFINITY} if the ray misses the box within the given distance
+     */
+    public double intersect(Ray ray, double maxDistance) {
+        if (isEmpty()) return Double.POSITIVE_INFINITY;
+        Point head = ray.getHead();
+        Vector dir = ray.getDirection();
+        double tNear = 0;
+        double tFar = maxDistance;
+
+        // x slab
+        double d = dir.getX();
+        double o = head.getX();
+        if (d == 0) {
+            // parallel to the slab - the head must be between the two planes
+            if (o < minX - EPSILON || o > maxX + EPSILON) return Double.POSITIVE_INFINITY;
+        } else {
+            double t1 = (minX - o) / d;
+            double t2 = (maxX - o) / d;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+        }
+        // y slab
+        d = dir.getY();
+        o = head.getY();
+        if (d == 0) {
+            if (o < minY - EPSILON || o > maxY + EPSILON) return Double.POSITIVE_INFINITY;
+        } else {
+            double t1 = (minY - o) / d;
+            double t2 = (maxY - o) / d;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+        }
+        // z slab
+        d = dir.getZ();
+        o = head.getZ();
+        if (d == 0) {
+            if (o < minZ - EPSILON || o > maxZ + EPSILON) return Double.POSITIVE_INFINITY;
+        } else {
+            double t1 = (minZ - o) / d;
+            double t2 = (maxZ - o) / d;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+        }
+
+        return tNear > tFar + EPSILON * (1 + Math.abs(tFar)) ? Double.POSITIVE_INFINITY : tNear;
+    }
+
+    @Override
+    public String toString() {
+        return "BoundingBox[(" + minX + "," + minY + "," + minZ + ")-(" + maxX + "," + maxY + "," + maxZ + ")]";
+    }
+}
@@ -0,0 +1,697 @@
+package geometries;
+
+import geometries.Intersectable.Hit;
+import geometries.Intersectable.Intersection;
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Bounding volume hierarchy (BVH) over a collection of intersectable objects.
+ * The tree is built top-down, and each node is split where the surface area
+ * heuristic (SAH) estimates the lowest cost of tracing a ray through it.
+ * Unbounded objects (e.g. planes) cannot be placed in a box, so they are kept
+ * aside and tested against every ray.<br/>
+ * A lazy hierarchy starts from a single unsplit root, and a node is split (by the
+ * binned SAH) only when a ray first reaches it, so the parts of the scene that are
+ * never seen are never built. Several threads may reach the same unsplit node - it is
+ * split once, under the lock of the node.
+ */
+public final class BoundingVolumeHierarchy {
+    /** Estimated cost of visiting an inner node, relative to the cost of an object intersection */
+    static final double TRAVERSAL_COST = 1;
+    /** Estimated cost of intersecting a ray with a single object */
+    static final double INTERSECTION_COST = 1;
+    /** Maximal amount of objects in a leaf */
+    static final int MAX_LEAF_SIZE = 4;
+
+    /**
+     * Build statistics of the hierarchy
+     * @param nodeCount the amount of nodes (inner nodes and leaves)
+     * @param depth     the amount of levels in the tree
+     * @param leafSizes histogram of leaf sizes - amount of leaves per amount of objects in a leaf
+     * @param sahCost   estimated cost of tracing a ray through the tree according to the surface area heuristic
+     * @param threads   the amount of threads that built the tree, 0 for a lazy tree
+     * @param buildTime the build time in milliseconds (of the root only, for a lazy tree)
+     */
+    public record Statistics(int nodeCount, int depth, SortedMap<Integer, Integer> leafSizes, double sahCost,
+                             int threads, double buildTime) {
+    }
+
+    /** An object with its bounding box and the center of the box, as used while building */
+    record Item(Intersectable object, BoundingBox box, double[] center) {
+        Item(Intersectable object, BoundingBox box) {
+            this(object, box, new double[] { box.center(0), box.center(1), box.center(2) });
+        }
+    }
+
+    /** A node of the tree - either an inner node with two children or a leaf with objects */
+    static final class Node {
+        /** Bounding box of everything below the node */
+        final BoundingBox box;
+        /** Left child (null in a leaf) */
+        Node left;
+        /** Right child (null in a leaf) */
+        Node right;
+        /** Objects of a leaf (null in an inner node) */
+        Intersectable[] objects;
+        /**
+         * Objects of a lazy node that was not split yet (null once it is split) - the node
+         * holds the range [from, to) of the array. The children are published by clearing it.
+         */
+        volatile Item[] pending;
+        /** Start of the range of a lazy node (included) */
+        int from;
+        /** End of the range of a lazy node (excluded) */
+        int to;
+
+        Node(BoundingBox box) { this.box = box; }
+
+        /**
+         * Creates a lazy node over a range of items that will be split on demand
+         * @param items the items
+         * @param from  start of the range (included)
+         * @param to    end of the range (excluded)
+         */
+        Node(Item[] items, int from, int to) {
+            this(BinnedBvhBuilder.bounds(items, from, to));
+            this.from = from;
+            this.to = to;
+            this.pending = items;
+        }
+    }
+
+    /** Root of the tree, null if there are no bounded objects */
+    private final Node root;
+    /** Unbounded objects that are tested directly */
+    private final Intersectable[] unbounded;
+    /** Build statistics (of the time of the build, for a lazy tree) */
+    private final Statistics statistics;
+    /** Whether the nodes are split on demand */
+    private final boolean lazy;
+
+    /**
+     * Builds the hierarchy over the given objects
+     * @param objects the objects
+     */
+    BoundingVolumeHierarchy(Collection<Intersectable> objects) {
+        this(objects, 0);
+    }
+
+    /**
+     * Builds the hierarchy over the given objects
+     * @param objects the objects
+     * @param threads 0 for the sequential full sweep SAH build, otherwise the amount of
+     *                threads for the parallel binned SAH build
+     */
+    BoundingVolumeHierarchy(Collection<Intersectable> objects, int threads) {
+        this(objects, threads, false);
+    }
+
+    /**
+     * Creates a lazy hierarchy over the given objects - only the root is built,
+     * and the nodes are split when rays reach them
+     * @param objects the objects
+     * @return the hierarchy
+     */
+    static BoundingVolumeHierarchy lazy(Collection<Intersectable> objects) {
+        return new BoundingVolumeHierarchy(objects, 0, true);
+    }
+
+    /**
+     * Builds the hierarchy over the given objects
+     * @param objects the objects
+     * @param threads 0 for the sequential full sweep SAH build, otherwise the amount of
+     *                threads for the parallel binned SAH build (ignored for a lazy tree)
+     * @param lazy    whether to split the nodes on demand
+     */
+    private BoundingVolumeHierarchy(Collection<Intersectable> objects, int threads, boolean lazy) {
+        this.lazy = lazy;
+        long start = System.nanoTime();
+        List<Item> items = new LinkedList<>();
+        List<Intersectable> infinite = new LinkedList<>();
+        for (Intersectable object : objects) {
+            BoundingBox box = object.getBoundingBox();
+            if (box.isEmpty()) continue; // cannot be hit
+            if (box.isInfinite()) infinite.add(object);
+            else items.add(new Item(object, box));
+        }
+        unbounded = infinite.toArray(new Intersectable[0]);
+        Item[] array = items.toArray(new Item[0]);
+        if (array.length == 0) root = null;
+        else if (lazy) root = new Node(array, 0, array.length);
+        else if (threads == 0) root = build(array, 0, array.length);
+        else root = BinnedBvhBuilder.build(array, threads);
+        statistics = calcStatistics(lazy ? 0 : Math.max(threads, 1), (System.nanoTime() - start) / 1e6);
+    }
+
+    /**
+     * Builds a subtree over a range of items by the surface area heuristic
+     * @param items the items - the range is reordered according to the chosen split
+     * @param from  start of the range (included)
+     * @param to    end of the range (excluded)
+     * @return the root of the subtree
+     */
+    private static Node build(Item[] items, int from, int to) {
+        int n = to - from;
+        BoundingBox box = items[from].box;
+        for (int i = from + 1; i < to; ++i) box = box.union(items[i].box);
+        Node node = new Node(box);
+        if (n == 1) return makeLeaf(node, items, from, to);
+
+        double area = box.surfaceArea();
+        double invArea = area > 0 ? 1 / area : 0;
+        double[] rightAreas = new double[n];
+        Item[] best = null;
+        int bestSplit = -1;
+        double bestCost = Double.POSITIVE_INFINITY;
+        for (int axis = 0; axis < 3; ++axis) {
+            final int a = axis;
+            Item[] sorted = Arrays.copyOfRange(items, from, to);
+            Arrays.sort(sorted, Comparator.comparingDouble(item -> item.center[a]));
+
+            BoundingBox acc = sorted[n - 1].box;
+            for (int i = n - 1; i > 0; --i) {
+                acc = acc.union(sorted[i].box);
+                rightAreas[i] = acc.surfaceArea();
+            }
+            acc = sorted[0].box;
+            for (int i = 1; i < n; ++i) {
+                // split between sorted[i-1] and sorted[i]
+                double cost = TRAVERSAL_COST
+                        + INTERSECTION_COST * (acc.surfaceArea() * i + rightAreas[i] * (n - i)) * invArea;
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestSplit = i;
+                    best = sorted;
+                }
+                acc = acc.union(sorted[i].box);
+            }
+        }
+
+        if (n <= MAX_LEAF_SIZE && INTERSECTION_COST * n <= bestCost) return makeLeaf(node, items, from, to);
+
+        System.arraycopy(best, 0, items, from, n);
+        node.left = build(items, from, from + bestSplit);
+        node.right = build(items, from + bestSplit, to);
+        return node;
+    }
+
+    /**
+     * Turns a node into a leaf holding a range of items
+     * @param node  the node
+     * @param items the items
+     * @param from  start of the range (included)
+     * @param to    end of the range (excluded)
+     * @return the node
+     */
+    static Node makeLeaf(Node node, Item[] items, int from, int to) {
+        node.objects = new Intersectable[to - from];
+        for (int i = from; i < to; ++i) node.objects[i - from] = items[i].object;
+        return node;
+    }
+
+    /**
+     * Splits a lazy node, unless another thread has already done it. The children
+     * are lazy nodes themselves.
+     * @param node the node
+     */
+    static void expand(Node node) {
+        synchronized (node) {
+            Item[] items = node.pending;
+            if (items == null) return;
+            int mid = BinnedBvhBuilder.split(items, node.from, node.to, node.box);
+            if (mid < 0) {
+                makeLeaf(node, items, node.from, node.to);
+            } else {
+                node.left = new Node(items, node.from, mid);
+                node.right = new Node(items, mid, node.to);
+            }
+            node.pending = null;
+        }
+    }
+
+    /**
+     * Collects the statistics of the tree
+     * @param threads   the amount of threads that built the tree
+     * @param buildTime the build time in milliseconds
+     * @return the statistics
+     */
+    private Statistics calcStatistics(int threads, double buildTime) {
+        SortedMap<Integer, Integer> leafSizes = new TreeMap<>();
+        if (root == null) return new Statistics(0, 0, leafSizes, 0, threads, buildTime);
+        // {node count, depth}
+        int[] counters = new int[2];
+        double cost = calcStatistics(root, 1, root.box.surfaceArea(), counters, leafSizes);
+        return new Statistics(counters[0], counters[1], leafSizes, cost, threads, buildTime);
+    }
+
+    /**
+     * Collects the statistics of a subtree
+     * @param node      root of the subtree
+     * @param level     level of the node (1 for the root)
+     * @param rootArea  surface area of the root box
+     * @param counters  node count and depth accumulators
+     * @param leafSizes leaf size histogram accumulator
+     * @return the SAH cost of the subtree
+     */
+    private static double calcStatistics(Node node, int level, double rootArea, int[] counters,
+                                         SortedMap<Integer, Integer> leafSizes) {
+        ++counters[0];
+        counters[1] = Math.max(counters[1], level);
+        double ratio = rootArea > 0 ? node.box.surfaceArea() / rootArea : 1;
+        Item[] pending = node.pending;
+        if (pending != null) {
+            // a lazy node that was not split yet - all of its objects are tested
+            leafSizes.merge(node.to - node.from, 1, Integer::sum);
+            return INTERSECTION_COST * (node.to - node.from) * ratio;
+        }
+        if (node.objects != null) {
+            leafSizes.merge(node.objects.length, 1, Integer::sum);
+            return INTERSECTION_COST * node.objects.length * ratio;
+        }
+        return TRAVERSAL_COST * ratio
+                + calcStatistics(node.left, level + 1, rootArea, counters, leafSizes)
+                + calcStatistics(node.right, level + 1, rootArea, counters, leafSizes);
+    }
+
+    /**
+     * Returns the build statistics of the hierarchy. For a lazy hierarchy they describe
+     * the part of the tree that was split so far, each unsplit node counted as a leaf.
+     * @return the statistics
+     */
+    public Statistics getStatistics() {
+        return lazy ? calcStatistics(0, statistics.buildTime()) : statistics;
+    }
+
+    /**
+     * Compiles the hierarchy into flat arrays (splitting all the nodes of a lazy tree)
+     * @return the flat hierarchy
+     */
+    FlatBoundingVolumeHierarchy flatten() {
+        return new FlatBoundingVolumeHierarchy(this, root, unbounded);
+    }
+
+    /**
+     * Measures the speedup of the parallel binned build as a function of the amount of threads.
+     * The hierarchy is built with 1, 2, 4, ... threads up to the maximal amount, and the best
+     * of three builds is taken for each amount.
+     * @param geometries the geometries to build the hierarchy over
+     * @param maxThreads the maximal amount of threads
+     * @return map from amount of threads to the build speedup relative to a single thread
+     */
+    public static SortedMap<Integer, Double> measureBuildSpeedup(Geometries geometries, int maxThreads) {
+        if (maxThreads < 1) throw new IllegalArgumentException("At least one thread is required");
+        SortedMap<Integer, Double> speedup = new TreeMap<>();
+        double singleThreaded = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            double best = Double.POSITIVE_INFINITY;
+            for (int run = 0; run < 3; ++run)
+                best = Math.min(best,
+                        new BoundingVolumeHierarchy(geometries.getGeometries(), threads).statistics.buildTime());
+            if (threads == 1) singleThreaded = best;
+            speedup.put(threads, best > 0 ? singleThreaded / best : 1);
+            if (threads == maxThreads) return speedup;
+        }
+    }
+
+    /**
+     * Finds the closest hit of a ray with the objects. The nodes are visited
+     * from near to far, and a node is skipped when its box is farther than the hit
+     * that was already found.
+     * @param ray  the ray
+     * @param tMin the minimal distance along the ray (excluded)
+     * @param hit  the hit recorded so far - updated if a nearer hit is found
+     * @return true if a nearer hit was found
+     */
+    boolean findClosestHit(Ray ray, double tMin, Hit hit) {
+        boolean found = false;
+        for (Intersectable object : unbounded)
+            found |= object.calculateClosestHit(ray, tMin, hit);
+        if (root == null) return found;
+
+        double entry = root.box.intersect(ray, hit.t);
+        if (entry == Double.POSITIVE_INFINITY) return found;
+
+        Node[] stack = new Node[stackSize()];
+        double[] entries = new double[stack.length];
+        int top = 0;
+        stack[top] = root;
+        entries[top++] = entry;
+        while (top > 0) {
+            Node node = stack[--top];
+            if (entries[top] > hit.t) continue;
+            if (node.pending != null) expand(node);
+
+            if (node.objects != null) {
+                for (Intersectable object : node.objects)
+                    found |= object.calculateClosestHit(ray, tMin, hit);
+                continue;
+            }
+
+            double left = node.left.box.intersect(ray, hit.t);
+            double right = node.right.box.intersect(ray, hit.t);
+            // push the farther child first so that the nearer one is visited first
+            Node near = node.left, far = node.right;
+            if (right < left) {
+                near = node.right;
+                far = node.left;
+                double tmp = left;
+                left = right;
+                right = tmp;
+            }
+            if (top + 2 > stack.length) {
+                // a lazy tree may be deeper than it was when the stack was allocated
+                stack = Arrays.copyOf(stack, stack.length * 2);
+                entries = Arrays.copyOf(entries, stack.length);
+            }
+            if (right != Double.POSITIVE_INFINITY) {
+                stack[top] = far;
+                entries[top++] = right;
+            }
+            if (left != Double.POSITIVE_INFINITY) {
+                stack[top] = near;
+                entries[top++] = left;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the closest intersections of a beam of rays with the objects (packet traversal).
+     * Each node is visited once for the whole beam: first the beam is tested against the
+     * box as a whole, then each ray that is still in the packet is tested alone and drops
+     * out of the packet of the subtree when it misses the box, or when the box is farther
+     * than the intersection that the ray has already found.
+     * @param beam the rays
+     * @return the closest intersection of each ray, in the order of the rays (null for a ray without one)
+     */
+    Intersection[] findClosestIntersections(List<Ray> beam) {
+        Ray[] rays = beam.toArray(new Ray[0]);
+        int n = rays.length;
+        Hit[] hits = new Hit[n];
+        for (int i = 0; i < n; ++i) hits[i] = new Hit(Double.POSITIVE_INFINITY);
+        for (Intersectable object : unbounded)
+            for (int i = 0; i < n; ++i) object.calculateClosestHit(rays[i], 0, hits[i]);
+        if (root == null || n == 0) return toIntersections(rays, hits);
+
+        BeamBounds bounds = new BeamBounds(rays);
+        int[] all = new int[n];
+        for (int i = 0; i < n; ++i) all[i] = i;
+        Node[] stack = new Node[stackSize()];
+        int[][] packets = new int[stack.length][];
+        int[] sizes = new int[stack.length];
+        int top = 0;
+        stack[top] = root;
+        packets[top] = all;
+        sizes[top++] = n;
+        while (top > 0) {
+            Node node = stack[--top];
+            int[] packet = packets[top];
+            int size = sizes[top];
+            double farthest = 0;
+            for (int k = 0; k < size; ++k) farthest = Math.max(farthest, hits[packet[k]].t);
+            if (bounds.misses(node.box, farthest)) continue;
+
+            // the rays that reach the box within their closest distance
+            int[] active = new int[size];
+            int count = 0;
+            for (int k = 0; k < size; ++k) {
+                int i = packet[k];
+                if (node.box.intersect(rays[i], hits[i].t) != Double.POSITIVE_INFINITY) active[count++] = i;
+            }
+            if (count == 0) continue;
+            if (node.pending != null) expand(node);
+
+            if (node.objects != null) {
+                for (Intersectable object : node.objects)
+                    for (int k = 0; k < count; ++k) object.calculateClosestHit(rays[active[k]], 0, hits[active[k]]);
+                continue;
+            }
+
+            if (top + 2 > stack.length) {
+                // a lazy tree may be deeper than it was when the stack was allocated
+                stack = Arrays.copyOf(stack, stack.length * 2);
+                packets = Arrays.copyOf(packets, stack.length);
+                sizes = Arrays.copyOf(sizes, stack.length);
+            }
+            // the near child is chosen by the direction of a ray of the packet
+            Ray first = rays[active[0]];
+            boolean leftFirst = first.getDirection().getX() * (node.right.box.center(0) - node.left.box.center(0))
+                    + first.getDirection().getY() * (node.right.box.center(1) - node.left.box.center(1))
+                    + first.getDirection().getZ() * (node.right.box.center(2) - node.left.box.center(2)) >= 0;
+            stack[top] = leftFirst ? node.right : node.left;
+            packets[top] = active;
+            sizes[top++] = count;
+            stack[top] = leftFirst ? node.left : node.right;
+            packets[top] = active;
+            sizes[top++] = count;
+        }
+        return toIntersections(rays, hits);
+    }
+
+    /**
+     * Creates the intersections of the hits of a beam
+     * @param rays the rays of the beam
+     * @param hits the hits of the rays
+     * @return the intersection of each ray (null for a ray without a hit)
+     */
+    static Intersection[] toIntersections(Ray[] rays, Hit[] hits) {
+        Intersection[] result = new Intersection[rays.length];
+        for (int i = 0; i < rays.length; ++i) result[i] = hits[i].toIntersection(rays[i]);
+        return result;
+    }
+
+    /**
+     * Intervals of the heads and of the inverse directions of a beam of rays, for a
+     * conservative test of the whole beam against a box (interval arithmetic on the
+     * slab test). An axis is used only when all the rays go to the same side along it.
+     * Shared by the tree and by its flat form.
+     */
+    static final class BeamBounds {
+        /** Minimal head coordinates */
+        private final double[] headMin = new double[3];
+        /** Maximal head coordinates */
+        private final double[] headMax = new double[3];
+        /** Minimal inverse direction components */
+        private final double[] inverseMin = new double[3];
+        /** Maximal inverse direction components */
+        private final double[] inverseMax = new double[3];
+        /** Whether the rays go to the same side along an axis, with finite inverse components */
+        private final boolean[] coherent = new boolean[3];
+        /** Whether the rays go to the negative side along an axis */
+        private final boolean[] negative = new boolean[3];
+
+        /**
+         * Calculates the intervals of a beam
+         * @param rays the rays (at least one)
+         */
+        BeamBounds(Ray[] rays) {
+            for (int axis = 0; axis < 3; ++axis) {
+                headMin[axis] = inverseMin[axis] = Double.POSITIVE_INFINITY;
+                headMax[axis] = inverseMax[axis] = Double.NEGATIVE_INFINITY;
+            }
+            for (Ray ray : rays) {
+                Point head = ray.getHead();
+                double[] o = { head.getX(), head.getY(), head.getZ() };
+                double[] inverse = { ray.getInverseX(), ray.getInverseY(), ray.getInverseZ() };
+                for (int axis = 0; axis < 3; ++axis) {
+                    headMin[axis] = Math.min(headMin[axis], o[axis]);
+                    headMax[axis] = Math.max(headMax[axis], o[axis]);
+                    inverseMin[axis] = Math.min(inverseMin[axis], inverse[axis]);
+                    inverseMax[axis] = Math.max(inverseMax[axis], inverse[axis]);
+                }
+            }
+            for (int axis = 0; axis < 3; ++axis) {
+                negative[axis] = inverseMax[axis] < 0;
+                coherent[axis] = (inverseMin[axis] > 0 || inverseMax[axis] < 0)
+                        && Double.isFinite(inverseMin[axis]) && Double.isFinite(inverseMax[axis]);
+            }
+        }
+
+        /**
+         * Checks whether all the rays of the beam miss a box
+         * @param box         the box
+         * @param maxDistance the maximal distance along the rays that is of interest
+         * @return true if no ray of the beam can hit the box within the distance
+         */
+        boolean misses(BoundingBox box, double maxDistance) {
+            return misses(new double[] { box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ }, 0,
+                    maxDistance);
+        }
+
+        /**
+         * Checks whether all the rays of the beam miss a box given by its coordinates
+         * @param bounds      array of the minX, minY, minZ, maxX, maxY, maxZ of boxes
+         * @param base        index of the minX of the box in the array
+         * @param maxDistance the maximal distance along the rays that is of interest
+         * @return true if no ray of the beam can hit the box within the distance
+         */
+        boolean misses(double[] bounds, int base, double maxDistance) {
+            double tNear = 0;
+            double tFar = maxDistance;
+            for (int axis = 0; axis < 3; ++axis) {
+                if (!coherent[axis]) continue;
+                double near = bounds[base + axis + (negative[axis] ? 3 : 0)];
+                double far = bounds[base + axis + (negative[axis] ? 0 : 3)];
+                // lower bound of the entry distance and upper bound of the exit distance of all the rays
+                tNear = Math.max(tNear, lower(near - headMax[axis], near - headMin[axis], axis));
+                tFar = Math.min(tFar, upper(far - headMax[axis], far - headMin[axis], axis));
+            }
+            return tNear > tFar + 1e-9 * (1 + Math.abs(tFar));
+        }
+
+        /**
+         * Lower bound of the product of an interval with the inverse direction interval
+         * @param a    start of the interval
+         * @param b    end of the interval
+         * @param axis the axis
+         * @return the lower bound
+         */
+        private double lower(double a, double b, int axis) {
+            return Math.min(Math.min(a * inverseMin[axis], a * inverseMax[axis]),
+                    Math.min(b * inverseMin[axis], b * inverseMax[axis]));
+        }
+
+        /**
+         * Upper bound of the product of an interval with the inverse direction interval
+         * @param a    start of the interval
+         * @param b    end of the interval
+         * @param axis the axis
+         * @return the upper bound
+         */
+        private double upper(double a, double b, int axis) {
+            return Math.max(Math.max(a * inverseMin[axis], a * inverseMax[axis]),
+                    Math.max(b * inverseMin[axis], b * inverseMax[axis]));
+        }
+    }
+
+    /**
+     * Finds all the intersections of a ray with the objects, skipping the subtrees
+     * whose boxes are missed by the ray
+     * @param ray the ray
+     * @return list of the intersections, or null if there are none
+     */
+    List<Intersection> calculateIntersections(Ray ray) {
+        List<Intersection> result = null;
+        for (Intersectable object : unbounded)
+            result = addIntersections(result, object.calculateIntersections(ray));
+        if (root == null || root.box.intersect(ray, Double.POSITIVE_INFINITY) == Double.POSITIVE_INFINITY)
+            return result;
+
+        Node[] stack = new Node[stackSize()];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            Node node = stack[--top];
+            if (node.pending != null) expand(node);
+            if (node.objects != null) {
+                for (Intersectable object : node.objects)
+                    result = addIntersections(result, object.calculateIntersections(ray));
+                continue;
+            }
+            if (top + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+            if (node.right.box.intersect(ray, Double.POSITIVE_INFINITY) != Double.POSITIVE_INFINITY)
+                stack[top++] = node.right;
+            if (node.left.box.intersect(ray, Double.POSITIVE_INFINITY) != Double.POSITIVE_INFINITY)
+                stack[top++] = node.left;
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether an opaque object intersects a ray before a maximal distance. The
+     * nodes are visited in any order, and the search stops on the first blocker.
+     * @param ray  the ray
+     * @param tMax the maximal distance along the ray (excluded)
+     * @param kMin an object whose transparency is lower than it is opaque
+     * @return true if the ray is blocked
+     */
+    boolean isOccluded(Ray ray, double tMax, double kMin) {
+        for (Intersectable object : unbounded)
+            if (object.isOccluded(ray, tMax, kMin)) return true;
+        if (root == null || root.box.intersect(ray, tMax) == Double.POSITIVE_INFINITY) return false;
+
+        Node[] stack = new Node[stackSize()];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            Node node = stack[--top];
+            if (node.pending != null) expand(node);
+            if (node.objects != null) {
+                for (Intersectable object : node.objects)
+                    if (object.isOccluded(ray, tMax, kMin)) return true;
+                continue;
+            }
+            if (top + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+            if (node.right.box.intersect(ray, tMax) != Double.POSITIVE_INFINITY) stack[top++] = node.right;
+            if (node.left.box.intersect(ray, tMax) != Double.POSITIVE_INFINITY) stack[top++] = node.left;
+        }
+        return false;
+    }
+
+    /**
+     * Multiplies the transparency of the intersections of a ray before a maximal distance,
+     * and stops as soon as the product falls below the minimum
+     * @param ray  the ray
+     * @param tMax the maximal distance along the ray (excluded)
+     * @param k    the transmittance accumulated so far
+     * @param kMin the minimal transmittance of interest
+     * @return the accumulated transmittance, or {@link Double3#ZERO} if it fell below the minimum
+     */
+    Double3 calculateTransmittance(Ray ray, double tMax, Double3 k, double kMin) {
+        for (Intersectable object : unbounded) {
+            k = object.calculateTransmittance(ray, tMax, k, kMin);
+            if (k == Double3.ZERO) return k;
+        }
+        if (root == null || root.box.intersect(ray, tMax) == Double.POSITIVE_INFINITY) return k;
+
+        Node[] stack = new Node[stackSize()];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            Node node = stack[--top];
+            if (node.pending != null) expand(node);
+            if (node.objects != null) {
+                for (Intersectable object : node.objects) {
+                    k = object.calculateTransmittance(ray, tMax, k, kMin);
+                    if (k == Double3.ZERO) return k;
+                }
+                continue;
+            }
+            if (top + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+            if (node.right.box.intersect(ray, tMax) != Double.POSITIVE_INFINITY) stack[top++] = node.right;
+            if (node.left.box.intersect(ray, tMax) != Double.POSITIVE_INFINITY) stack[top++] = node.left;
+        }
+        return k;
+    }
+
+    /**
+     * Returns the initial size of a traversal stack
+     * @return depth of the tree, or a guess for a lazy tree
+     */
+    private int stackSize() {
+        return lazy ? 64 : statistics.depth() + 1;
+    }
+
+    /**
+     * Appends intersections to a result list, allocating the list on demand
+     * @param result        the result list (may be null)
+     * @param intersections the intersections to add (may be null)
+     * @return the result list
+     */
+    private static List<Intersection> addIntersections(List<Intersection> result, List<Intersection> intersections) {
+        if (intersections == null || intersections.isEmpty()) return result;
+        if (result == null) return new LinkedList<>(intersections);
+        result.addAll(intersections);
+        return result;
+    }
+}
@@ -5,6 +5,8 @@ import primitives.Ray;
 import primitives.Util;
 import primitives.Vector;
 
+import java.util.Arrays;
+
 /**
  * A class that represents a cylinder in three-dimensional space, defined by a radius, an axis (Ray), and a height.
  * The class inherits from the Tube class.
@@ -27,6 +29,29 @@ public class Cylinder extends Tube{
         height = _height;
     }
 
+    /**
+     * The box of a cylinder encloses the two base disks. On each axis, a disk of
+     * radius r whose normal is v extends r*sqrt(1 - v²) around its center.
+     *
+     * @return the bounding box of the cylinder
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        Point bottom = axis.getHead();
+        Vector v = axis.getDirection();
+        Point top = bottom.add(v.scale(height));
+        double ex = radius * Math.sqrt(Math.max(0, 1 - v.getX() * v.getX()));
+        double ey = radius * Math.sqrt(Math.max(0, 1 - v.getY() * v.getY()));
+        double ez = radius * Math.sqrt(Math.max(0, 1 - v.getZ() * v.getZ()));
+        return new BoundingBox(
+                Math.min(bottom.getX(), top.getX()) - ex,
+                Math.min(bottom.getY(), top.getY()) - ey,
+                Math.min(bottom.getZ(), top.getZ()) - ez,
+                Math.max(bottom.getX(), top.getX()) + ex,
+                Math.max(bottom.getY(), top.getY()) + ey,
+                Math.max(bottom.getZ(), top.getZ()) + ez);
+    }
+
     @Override
     /**
      * Returns the height of the cylinder.
@@ -61,4 +86,52 @@ public class Cylinder extends Tube{
         Point projectedPoint = p0.add(v.scale(t));
         return point.subtract(projectedPoint).normalize();
     }
+
+    /**
+     * Calculates the distances along a ray to its intersections with the cylinder: the
+     * intersections with the tube between the bases, and the intersections with the planes
+     * of the bases inside their disks. The edges of the bases are not hit.
+     *
+     * @param ray The ray.
+     * @return The distances of the intersections in ascending order, or null if there are none.
+     */
+    @Override
+    protected double[] distances(Ray ray) {
+        Point p = ray.getHead();
+        Vector d = ray.getDirection();
+        Point a = axis.getHead();
+        Vector v = axis.getDirection();
+        double dx = d.getX(), dy = d.getY(), dz = d.getZ();
+        double qx = p.getX() - a.getX(), qy = p.getY() - a.getY(), qz = p.getZ() - a.getZ();
+        double dv = d.dotProduct(v);
+        double qv = qx * v.getX() + qy * v.getY() + qz * v.getZ();
+
+        // at most two side and two base intersections, allocated only for a hit
+        double[] result = null;
+        int count = 0;
+        // the side: the tube intersections whose height along the axis is between the bases
+        double[] side = super.distances(ray);
+        if (side != null)
+            for (double t : side) {
+                double h = qv + t * dv;
+                if (Util.alignZero(h) <= 0 || Util.alignZero(h - height) >= 0) continue;
+                if (result == null) result = new double[4];
+                result[count++] = t;
+            }
+        // the bases: the intersections with their planes that are closer than the radius to the axis
+        if (!Util.isZero(dv))
+            for (int i = 0; i < 2; ++i) {
+                double base = i == 0 ? 0 : height;
+                double t = Util.alignZero((base - qv) / dv);
+                if (t <= 0) continue;
+                double wx = qx + t * dx, wy = qy + t * dy, wz = qz + t * dz;
+                if (Util.alignZero(wx * wx + wy * wy + wz * wz - base * base - radiusSquared) >= 0) continue;
+                if (result == null) result = new double[4];
+                result[count++] = t;
+            }
+        if (count == 0) return null;
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,635 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Ray;
+import primitives.Transform;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+
+import static geometries.BoundingVolumeHierarchy.INTERSECTION_COST;
+import static geometries.BoundingVolumeHierarchy.TRAVERSAL_COST;
+
+/**
+ * Collection of geometries for scenes that change between frames, with a bounding
+ * volume hierarchy that is maintained incrementally instead of being built again.<br/>
+ * Every object gets a leaf of its own:
+ * <ul>
+ * <li>an added object is inserted next to the node that enlarges the tree the least</li>
+ * <li>a removed object is replaced by its sibling</li>
+ * <li>a moved object ({@link #update}) keeps its place and only the boxes of its
+ * ancestors are refitted</li>
+ * </ul>
+ * So the work of a change is proportional to the depth of the tree, not to the size of
+ * the scene. Refitting does not improve the structure of the tree, so its quality is
+ * tracked by the surface area heuristic cost, and when the cost grows past a threshold
+ * relative to the cost of the last full build, the tree is built again.<br/>
+ * Objects are placed in the scene by an affine transformation - rays are moved into
+ * the local space of the object, and the intersections are moved back.<br/>
+ * The collection may be contained in {@link Geometries} - every change drops the cached
+ * bounds and acceleration structures of the collections that contain it, as adding a
+ * geometry to them does.
+ */
+public class DynamicGeometries extends Intersectable {
+    /** Default ratio between the current cost and the cost of the last build that triggers a build */
+    public static final double DEFAULT_REBUILD_THRESHOLD = 1.5;
+
+    /**
+     * An object of the collection - used to update or remove it
+     */
+    public static final class Handle {
+        /** The collection of the object */
+        private final DynamicGeometries owner;
+        /** The object in its local space */
+        private final Intersectable object;
+        /** Transformation from the local space of the object to the scene, null for none */
+        private Transform transform;
+        /** Transformation from the scene to the local space of the object, null for none */
+        private Transform inverse;
+        /** The box of the object in the scene */
+        private BoundingBox box;
+        /** The leaf of the object, null if the object is unbounded, empty or removed */
+        private Node leaf;
+        /** Position in the list of the bounded or of the unbounded objects, -1 if it is in none */
+        private int index = -1;
+        /** Whether the object was removed */
+        private boolean removed = false;
+
+        /**
+         * Creates a handle of an object
+         * @param owner  the collection
+         * @param object the object
+         */
+        private Handle(DynamicGeometries owner, Intersectable object) {
+            this.owner = owner;
+            this.object = object;
+        }
+
+        /**
+         * Returns the object
+         * @return the object in its local space
+         */
+        public Intersectable getObject() {
+            return object;
+        }
+
+        /**
+         * Returns the transformation of the object
+         * @return the transformation from the local space of the object to the scene
+         */
+        public Transform getTransform() {
+            return transform == null ? Transform.IDENTITY : transform;
+        }
+    }
+
+    /**
+     * Node of the tree - an inner node has two children, a leaf has a single object
+     */
+    private static final class Node {
+        /** Box of the node */
+        private BoundingBox box;
+        /** Parent node, null for the root */
+        private Node parent;
+        /** Left child, null for a leaf */
+        private Node left;
+        /** Right child, null for a leaf */
+        private Node right;
+        /** The object of a leaf, null for an inner node */
+        private final Handle handle;
+
+        /**
+         * Creates a node
+         * @param box    box of the node
+         * @param handle the object of a leaf, null for an inner node
+         */
+        private Node(BoundingBox box, Handle handle) {
+            this.box = box;
+            this.handle = handle;
+        }
+
+        /**
+         * Checks whether the node is a leaf
+         * @return true for a leaf
+         */
+        private boolean isLeaf() {
+            return handle != null;
+        }
+    }
+
+    /** Root of the tree, null if there are no bounded objects */
+    private Node root = null;
+    /** The objects that are in the tree */
+    private final List<Handle> bounded = new ArrayList<>();
+    /** The objects with infinite boxes - they are tested by every ray */
+    private final List<Handle> unbounded = new ArrayList<>();
+    /** Sum of the box areas of the inner nodes */
+    private double innerArea = 0;
+    /** Sum of the box areas of the leaves */
+    private double leafArea = 0;
+    /** Cost of the tree right after the last full build, 0 before the first build */
+    private double builtCost = 0;
+    /** Ratio between the current cost and the cost of the last build that triggers a build */
+    private double rebuildThreshold = DEFAULT_REBUILD_THRESHOLD;
+    /** Amount of full builds of the tree */
+    private int rebuildCount = 0;
+    /** Collections that contain this one - their cached data depends on its bounds */
+    final List<Geometries> parents = new LinkedList<>();
+
+    /**
+     * Sets the ratio between the current cost of the tree and its cost right after the last
+     * full build, beyond which the tree is built again
+     * @param threshold the ratio
+     * @return this collection for method chaining
+     * @throws IllegalArgumentException if the ratio is less than 1
+     */
+    public DynamicGeometries setRebuildThreshold(double threshold) {
+        if (threshold < 1) throw new IllegalArgumentException("Rebuild threshold must not be less than 1");
+        this.rebuildThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * Adds an object as is
+     * @param object the object
+     * @return the handle of the object
+     */
+    public Handle add(Intersectable object) {
+        return add(object, Transform.IDENTITY);
+    }
+
+    /**
+     * Adds an object placed in the scene by a transformation
+     * @param object    the object in its local space
+     * @param transform transformation from the local space of the object to the scene
+     * @return the handle of the object
+     */
+    public Handle add(Intersectable object, Transform transform) {
+        Handle handle = new Handle(this, object);
+        setTransform(handle, transform);
+        if (handle.box.isInfinite()) {
+            handle.index = unbounded.size();
+            unbounded.add(handle);
+        } else if (!handle.box.isEmpty()) {
+            handle.index = bounded.size();
+            bounded.add(handle);
+            handle.leaf = new Node(handle.box, handle);
+            leafArea += handle.box.surfaceArea();
+            insertLeaf(handle.leaf);
+            checkQuality();
+        }
+        invalidateParents();
+        return handle;
+    }
+
+    /**
+     * Removes an object
+     * @param handle the handle of the object
+     * @throws IllegalArgumentException if the object is not in the collection
+     */
+    public void remove(Handle handle) {
+        validate(handle);
+        handle.removed = true;
+        if (handle.leaf != null) {
+            removeFromList(bounded, handle);
+            leafArea -= handle.leaf.box.surfaceArea();
+            removeLeaf(handle.leaf);
+            handle.leaf = null;
+            checkQuality();
+        } else if (handle.index >= 0) {
+            removeFromList(unbounded, handle);
+        }
+        invalidateParents();
+    }
+
+    /**
+     * Moves an object - the boxes of the nodes above it are refitted
+     * @param handle    the handle of the object
+     * @param transform the new transformation from the local space of the object to the scene
+     *                  (it replaces the former one)
+     * @throws IllegalArgumentException if the object is not in the collection
+     */
+    public void update(Handle handle, Transform transform) {
+        validate(handle);
+        setTransform(handle, transform);
+        invalidateParents();
+        if (handle.leaf == null) return;
+        leafArea += handle.box.surfaceArea() - handle.leaf.box.surfaceArea();
+        handle.leaf.box = handle.box;
+        refit(handle.leaf.parent);
+        checkQuality();
+    }
+
+    /**
+     * Builds the whole tree again, by a median split on the longest axis of the box centers
+     */
+    public void rebuild() {
+        innerArea = 0;
+        leafArea = 0;
+        if (bounded.isEmpty()) {
+            root = null;
+        } else {
+            Handle[] handles = bounded.toArray(new Handle[0]);
+            root = build(handles, 0, handles.length);
+            root.parent = null;
+        }
+        builtCost = getSahCost();
+        ++rebuildCount;
+    }
+
+    /**
+     * Calculates the cost of the tree by the surface area heuristic - the expected cost
+     * of a ray that passes through the box of the root
+     * @return the cost, 0 for an empty tree
+     */
+    public double getSahCost() {
+        if (root == null) return 0;
+        double rootArea = root.box.surfaceArea();
+        if (rootArea == 0) return INTERSECTION_COST * bounded.size();
+        return (TRAVERSAL_COST * innerArea + INTERSECTION_COST * leafArea) / rootArea;
+    }
+
+    /**
+     * Returns the amount of full builds of the tree
+     * @return the amount of builds
+     */
+    public int getRebuildCount() {
+        return rebuildCount;
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        if (!unbounded.isEmpty()) return BoundingBox.INFINITE;
+        return root == null ? BoundingBox.EMPTY : root.box;
+    }
+
+    @Override
+    public boolean calculateClosestHit(Ray ray, double tMin, Hit hit) {
+        boolean found = false;
+        for (Handle handle : unbounded)
+            found |= closestHit(handle, ray, tMin, hit);
+        if (root == null || root.box.intersect(ray, hit.t) == Double.POSITIVE_INFINITY) return found;
+
+        Node[] stack = new Node[64];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            Node node = stack[--top];
+            // the box may be farther than a hit that was found after the node was pushed
+            if (node.box.intersect(ray, hit.t) == Double.POSITIVE_INFINITY) continue;
+            if (node.isLeaf()) {
+                found |= closestHit(node.handle, ray, tMin, hit);
+                continue;
+            }
+            double leftDistance = node.left.box.intersect(ray, hit.t);
+            double rightDistance = node.right.box.intersect(ray, hit.t);
+            if (top + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+            // push the farther child first so that the nearer one is visited first
+            if (leftDistance <= rightDistance) {
+                if (rightDistance != Double.POSITIVE_INFINITY) stack[top++] = node.right;
+                if (leftDistance != Double.POSITIVE_INFINITY) stack[top++] = node.left;
+            } else {
+                if (leftDistance != Double.POSITIVE_INFINITY) stack[top++] = node.left;
+                stack[top++] = node.right;
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public boolean isOccluded(Ray ray, double tMax, double kMin) {
+        for (Handle handle : unbounded)
+            if (isOccluded(handle, ray, tMax, kMin)) return true;
+        if (root == null) return false;
+
+        Node[] stack = new Node[64];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            Node node = stack[--top];
+            if (node.box.intersect(ray, tMax) == Double.POSITIVE_INFINITY) continue;
+            if (node.isLeaf()) {
+                if (isOccluded(node.handle, ray, tMax, kMin)) return true;
+            } else {
+                if (top + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+                stack[top++] = node.right;
+                stack[top++] = node.left;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isOpaque(double kMin) {
+        for (Handle handle : bounded)
+            if (!handle.object.isOpaque(kMin)) return false;
+        for (Handle handle : unbounded)
+            if (!handle.object.isOpaque(kMin)) return false;
+        return true;
+    }
+
+    @Override
+    public Double3 calculateTransmittance(Ray ray, double tMax, Double3 k, double kMin) {
+        for (Handle handle : unbounded) {
+            k = transmittance(handle, ray, tMax, k, kMin);
+            if (k == Double3.ZERO) return k;
+        }
+        if (root == null) return k;
+
+        Node[] stack = new Node[64];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            Node node = stack[--top];
+            if (node.box.intersect(ray, tMax) == Double.POSITIVE_INFINITY) continue;
+            if (node.isLeaf()) {
+                k = transmittance(node.handle, ray, tMax, k, kMin);
+                if (k == Double3.ZERO) return k;
+            } else {
+                if (top + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+                stack[top++] = node.right;
+                stack[top++] = node.left;
+            }
+        }
+        return k;
+    }
+
+    @Override
+    protected List<Intersection> calculateIntersectionsHelper(Ray ray) {
+        List<Intersection> result = null;
+        for (Handle handle : unbounded)
+            result = addIntersections(result, intersections(handle, ray));
+        if (root == null) return result;
+
+        Node[] stack = new Node[64];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            Node node = stack[--top];
+            if (node.box.intersect(ray, Double.POSITIVE_INFINITY) == Double.POSITIVE_INFINITY) continue;
+            if (node.isLeaf()) {
+                result = addIntersections(result, intersections(node.handle, ray));
+            } else {
+                if (top + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+                stack[top++] = node.right;
+                stack[top++] = node.left;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Closest-hit query of a ray with an object
+     * @param handle the object
+     * @param ray    the ray in the scene
+     * @param tMin   the minimal distance along the ray (excluded)
+     * @param hit    the hit recorded so far - updated if a nearer hit is found
+     * @return true if a nearer hit was found
+     */
+    private static boolean closestHit(Handle handle, Ray ray, double tMin, Hit hit) {
+        if (handle.transform == null) return handle.object.calculateClosestHit(ray, tMin, hit);
+        return Instance.closestHit(handle.object, handle.transform, handle.inverse, ray, tMin, hit);
+    }
+
+    /**
+     * Occlusion query of a ray with an object
+     * @param handle the object
+     * @param ray    the ray in the scene
+     * @param tMax   the maximal distance along the ray (excluded)
+     * @param kMin   an object whose transparency is lower than it is opaque
+     * @return true if the ray is blocked
+     */
+    private static boolean isOccluded(Handle handle, Ray ray, double tMax, double kMin) {
+        if (handle.transform == null) return handle.object.isOccluded(ray, tMax, kMin);
+        return Instance.isOccluded(handle.object, handle.inverse, ray, tMax, kMin);
+    }
+
+    /**
+     * Transmittance query of a ray with an object
+     * @param handle the object
+     * @param ray    the ray in the scene
+     * @param tMax   the maximal distance along the ray (excluded)
+     * @param k      the transmittance accumulated so far
+     * @param kMin   the minimal transmittance of interest
+     * @return the accumulated transmittance, or {@link Double3#ZERO} if it fell below the minimum
+     */
+    private static Double3 transmittance(Handle handle, Ray ray, double tMax, Double3 k, double kMin) {
+        if (handle.transform == null) return handle.object.calculateTransmittance(ray, tMax, k, kMin);
+        return Instance.calculateTransmittance(handle.object, handle.inverse, ray, tMax, k, kMin);
+    }
+
+    /**
+     * Finds all the intersections of a ray with an object
+     * @param handle the object
+     * @param ray    the ray in the scene
+     * @return the intersections in the scene, or null
+     */
+    private static List<Intersection> intersections(Handle handle, Ray ray) {
+        if (handle.transform == null) return handle.object.calculateIntersections(ray);
+        List<Intersection> local = handle.object.calculateIntersections(handle.inverse.applyToRay(ray));
+        if (local == null) return null;
+        List<Intersection> world = new LinkedList<>();
+        for (Intersection intersection : local) world.add(Instance.toWorld(handle.transform, intersection));
+        return world;
+    }
+
+    /**
+     * Appends intersections to a result list, creating it if needed
+     * @param result        the result list, or null
+     * @param intersections the intersections to append, or null
+     * @return the result list, or null if both are empty
+     */
+    private static List<Intersection> addIntersections(List<Intersection> result, List<Intersection> intersections) {
+        if (intersections == null || intersections.isEmpty()) return result;
+        if (result == null) return new LinkedList<>(intersections);
+        result.addAll(intersections);
+        return result;
+    }
+
+    /**
+     * Sets the transformation of an object and calculates its box in the scene
+     * @param handle    the object
+     * @param transform the transformation from the local space of the object to the scene
+     */
+    private static void setTransform(Handle handle, Transform transform) {
+        if (transform == null || transform.isIdentity()) {
+            handle.transform = null;
+            handle.inverse = null;
+            handle.box = handle.object.getBoundingBox();
+            return;
+        }
+        handle.transform = transform;
+        handle.inverse = transform.inverse();
+        handle.box = Instance.transformBox(transform, handle.object.getBoundingBox());
+    }
+
+    /**
+     * Drops the cached data of the collections that contain this one, after a change
+     */
+    private void invalidateParents() {
+        for (Geometries parent : parents) parent.invalidate();
+    }
+
+    /**
+     * Checks that a handle belongs to an object of this collection
+     * @param handle the handle
+     * @throws IllegalArgumentException if it does not
+     */
+    private void validate(Handle handle) {
+        if (handle == null || handle.owner != this || handle.removed)
+            throw new IllegalArgumentException("The object is not in the collection");
+    }
+
+    /**
+     * Removes an object from a list in constant time - the last object takes its place
+     * @param list   the list
+     * @param handle the object
+     */
+    private static void removeFromList(List<Handle> list, Handle handle) {
+        Handle last = list.removeLast();
+        if (last != handle) {
+            list.set(handle.index, last);
+            last.index = handle.index;
+        }
+        handle.index = -1;
+    }
+
+    /**
+     * Inserts a leaf next to the node whose enlargement costs the least
+     * (by a greedy descent from the root), and refits the nodes above it
+     * @param leaf the leaf
+     */
+    private void insertLeaf(Node leaf) {
+        if (root == null) {
+            root = leaf;
+            leaf.parent = null;
+            return;
+        }
+        BoundingBox box = leaf.box;
+        Node sibling = root;
+        while (!sibling.isLeaf()) {
+            double siblingArea = sibling.box.surfaceArea();
+            double combinedArea = sibling.box.union(box).surfaceArea();
+            // cost of a new parent of the leaf and the sibling
+            double cost = 2 * combinedArea;
+            // the enlargement of the sibling is paid again by all the nodes below it
+            double inherited = 2 * (combinedArea - siblingArea);
+            double leftCost = descentCost(sibling.left, box) + inherited;
+            double rightCost = descentCost(sibling.right, box) + inherited;
+            if (cost < leftCost && cost < rightCost) break;
+            sibling = leftCost < rightCost ? sibling.left : sibling.right;
+        }
+
+        Node oldParent = sibling.parent;
+        Node parent = new Node(sibling.box.union(box), null);
+        innerArea += parent.box.surfaceArea();
+        parent.parent = oldParent;
+        parent.left = sibling;
+        parent.right = leaf;
+        sibling.parent = parent;
+        leaf.parent = parent;
+        if (oldParent == null) {
+            root = parent;
+        } else {
+            if (oldParent.left == sibling) oldParent.left = parent;
+            else oldParent.right = parent;
+            refit(oldParent);
+        }
+    }
+
+    /**
+     * Calculates the cost of inserting a box below a child node
+     * @param child the child
+     * @param box   the inserted box
+     * @return the lower bound of the cost
+     */
+    private static double descentCost(Node child, BoundingBox box) {
+        double combinedArea = child.box.union(box).surfaceArea();
+        return child.isLeaf() ? combinedArea : combinedArea - child.box.surfaceArea();
+    }
+
+    /**
+     * Removes a leaf from the tree - its sibling takes the place of their parent
+     * @param leaf the leaf
+     */
+    private void removeLeaf(Node leaf) {
+        Node parent = leaf.parent;
+        if (parent == null) {
+            root = null;
+            return;
+        }
+        Node sibling = parent.left == leaf ? parent.right : parent.left;
+        Node grandParent = parent.parent;
+        innerArea -= parent.box.surfaceArea();
+        sibling.parent = grandParent;
+        if (grandParent == null) {
+            root = sibling;
+        } else {
+            if (grandParent.left == parent) grandParent.left = sibling;
+            else grandParent.right = sibling;
+            refit(grandParent);
+        }
+    }
+
+    /**
+     * Refits the boxes of a node and of the nodes above it to their children
+     * @param node the lowest inner node to refit, or null
+     */
+    private void refit(Node node) {
+        for (; node != null; node = node.parent) {
+            BoundingBox box = node.left.box.union(node.right.box);
+            innerArea += box.surfaceArea() - node.box.surfaceArea();
+            node.box = box;
+        }
+    }
+
+    /**
+     * Builds the whole tree again if its cost grew too much since the last build
+     */
+    private void checkQuality() {
+        if (root == null || root.isLeaf()) return;
+        if (builtCost == 0 || getSahCost() > rebuildThreshold * builtCost) rebuild();
+    }
+
+    /**
+     * Builds a subtree over a range of objects
+     * @param handles the objects
+     * @param from    start of the range (included)
+     * @param to      end of the range (excluded)
+     * @return the root of the subtree
+     */
+    private Node build(Handle[] handles, int from, int to) {
+        if (to - from == 1) {
+            Handle handle = handles[from];
+            handle.leaf = new Node(handle.box, handle);
+            leafArea += handle.box.surfaceArea();
+            return handle.leaf;
+        }
+        double[] min = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY };
+        double[] max = { Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        for (int i = from; i < to; ++i)
+            for (int axis = 0; axis < 3; ++axis) {
+                double center = handles[i].box.center(axis);
+                min[axis] = Math.min(min[axis], center);
+                max[axis] = Math.max(max[axis], center);
+            }
+        int longest = 0;
+        for (int axis = 1; axis < 3; ++axis)
+            if (max[axis] - min[axis] > max[longest] - min[longest]) longest = axis;
+        final int axis = longest;
+        Arrays.sort(handles, from, to, Comparator.comparingDouble(h -> h.box.center(axis)));
+
+        int mid = (from + to) / 2;
+        Node left = build(handles, from, mid);
+        Node right = build(handles, mid, to);
+        Node node = new Node(left.box.union(right.box), null);
+        innerArea += node.box.surfaceArea();
+        node.left = left;
+        node.right = right;
+        left.parent = node;
+        right.parent = node;
+        return node;
+    }
+}
@@ -0,0 +1,453 @@
+package geometries;
+
+import geometries.BoundingVolumeHierarchy.Node;
+import geometries.Intersectable.Hit;
+import geometries.Intersectable.Intersection;
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Bounding volume hierarchy compiled into flat arrays, for traversal without chasing
+ * node objects around the heap.<br/>
+ * The nodes are stored depth first, so the left child of a node directly follows it,
+ * and the data of node i is spread over parallel arrays:
+ * <ul>
+ * <li>{@code bounds[6i .. 6i+5]} - minX, minY, minZ, maxX, maxY, maxZ of its box</li>
+ * <li>{@code links[2i]} - index of the right child of an inner node, or index of the first
+ * object of a leaf in {@code objects}</li>
+ * <li>{@code links[2i+1]} - amount of objects of a leaf, 0 for an inner node</li>
+ * </ul>
+ * The slab test uses the inverse direction and the sign bits that the ray precomputes,
+ * so the near and the far side of a box are picked without comparisons or divisions.
+ */
+final class FlatBoundingVolumeHierarchy {
+    /** Tolerance of the slab test, as in {@link BoundingBox#intersect(Ray, double)} */
+    private static final double EPSILON = 1e-9;
+
+    /** Boxes of the nodes, 6 values per node */
+    private final double[] bounds;
+    /** Child or object links of the nodes, 2 values per node */
+    private final int[] links;
+    /** Objects of the leaves, leaf after leaf */
+    private final Intersectable[] objects;
+    /** Unbounded objects that are tested directly */
+    private final Intersectable[] unbounded;
+    /** Statistics of the hierarchy that was flattened */
+    private final BoundingVolumeHierarchy.Statistics statistics;
+
+    /**
+     * Compiles a tree into flat arrays. Unsplit nodes of a lazy tree are split first.
+     * @param source    the hierarchy
+     * @param root      root of the tree, null for an empty tree
+     * @param unbounded the unbounded objects
+     */
+    FlatBoundingVolumeHierarchy(BoundingVolumeHierarchy source, Node root, Intersectable[] unbounded) {
+        this.unbounded = unbounded;
+        int[] counts = new int[2]; // {nodes, objects}
+        if (root != null) count(root, counts);
+        bounds = new double[6 * counts[0]];
+        links = new int[2 * counts[0]];
+        objects = new Intersectable[counts[1]];
+        if (root != null) store(root, new int[2]);
+        // taken after the whole tree was split
+        statistics = source.getStatistics();
+    }
+
+    /**
+     * Counts the nodes and the objects of a subtree, splitting the unsplit nodes
+     * @param node   root of the subtree
+     * @param counts node and object accumulators
+     */
+    private static void count(Node node, int[] counts) {
+        if (node.pending != null) BoundingVolumeHierarchy.expand(node);
+        ++counts[0];
+        if (node.objects != null) {
+            counts[1] += node.objects.length;
+        } else {
+            count(node.left, counts);
+            count(node.right, counts);
+        }
+    }
+
+    /**
+     * Stores a subtree depth first
+     * @param node root of the subtree
+     * @param next index of the next free node and of the next free object
+     */
+    private void store(Node node, int[] next) {
+        int index = next[0]++;
+        int base = 6 * index;
+        bounds[base] = node.box.minX;
+        bounds[base + 1] = node.box.minY;
+        bounds[base + 2] = node.box.minZ;
+        bounds[base + 3] = node.box.maxX;
+        bounds[base + 4] = node.box.maxY;
+        bounds[base + 5] = node.box.maxZ;
+        if (node.objects != null) {
+            links[2 * index] = next[1];
+            links[2 * index + 1] = node.objects.length;
+            for (Intersectable object : node.objects) objects[next[1]++] = object;
+        } else {
+            store(node.left, next);
+            links[2 * index] = next[0];
+            store(node.right, next);
+        }
+    }
+
+    /**
+     * Returns the statistics of the hierarchy that was flattened
+     * @return the statistics
+     */
+    BoundingVolumeHierarchy.Statistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Finds the closest hit of a ray with the objects. The nodes are visited
+     * from near to far, and a node is skipped when its box is farther than the hit
+     * that was already found.
+     * @param ray  the ray
+     * @param tMin the minimal distance along the ray (excluded)
+     * @param hit  the hit recorded so far - updated if a nearer hit is found
+     * @return true if a nearer hit was found
+     */
+    boolean findClosestHit(Ray ray, double tMin, Hit hit) {
+        boolean found = false;
+        for (Intersectable object : unbounded)
+            found |= object.calculateClosestHit(ray, tMin, hit);
+        if (objects.length == 0) return found;
+
+        Point head = ray.getHead();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double ix = ray.getInverseX(), iy = ray.getInverseY(), iz = ray.getInverseZ();
+        int signs = ray.getSigns();
+        double entry = intersect(0, ox, oy, oz, ix, iy, iz, signs, hit.t);
+        if (entry == Double.POSITIVE_INFINITY) return found;
+
+        int[] stack = new int[statistics.depth() + 1];
+        double[] entries = new double[stack.length];
+        int top = 0;
+        stack[top] = 0;
+        entries[top++] = entry;
+        while (top > 0) {
+            int node = stack[--top];
+            if (entries[top] > hit.t) continue;
+
+            int count = links[2 * node + 1];
+            if (count > 0) {
+                for (int i = links[2 * node], end = i + count; i < end; ++i)
+                    found |= objects[i].calculateClosestHit(ray, tMin, hit);
+                continue;
+            }
+
+            int near = node + 1, far = links[2 * node];
+            double nearEntry = intersect(near, ox, oy, oz, ix, iy, iz, signs, hit.t);
+            double farEntry = intersect(far, ox, oy, oz, ix, iy, iz, signs, hit.t);
+            // push the farther child first so that the nearer one is visited first
+            if (farEntry < nearEntry) {
+                int tmp = near;
+                near = far;
+                far = tmp;
+                double tmpEntry = nearEntry;
+                nearEntry = farEntry;
+                farEntry = tmpEntry;
+            }
+            if (farEntry != Double.POSITIVE_INFINITY) {
+                stack[top] = far;
+                entries[top++] = farEntry;
+            }
+            if (nearEntry != Double.POSITIVE_INFINITY) {
+                stack[top] = near;
+                entries[top++] = nearEntry;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the closest intersections of a beam of rays with the objects (packet traversal),
+     * as {@link BoundingVolumeHierarchy#findClosestIntersections(List)} does on the tree: each
+     * node is visited once for the packet of the rays that enter its box, and the packet is split
+     * between the children by testing the whole beam against each child box first and then each
+     * ray alone. The test of the whole beam is skipped for a packet of a single ray.
+     * @param beam the rays
+     * @return the closest intersection of each ray, in the order of the rays (null for a ray without one)
+     */
+    Intersection[] findClosestIntersections(List<Ray> beam) {
+        Ray[] rays = beam.toArray(new Ray[0]);
+        int n = rays.length;
+        Hit[] hits = new Hit[n];
+        for (int i = 0; i < n; ++i) hits[i] = new Hit(Double.POSITIVE_INFINITY);
+        for (Intersectable object : unbounded)
+            for (int i = 0; i < n; ++i) object.calculateClosestHit(rays[i], 0, hits[i]);
+        if (objects.length == 0 || n == 0) return BoundingVolumeHierarchy.toIntersections(rays, hits);
+
+        BoundingVolumeHierarchy.BeamBounds beamBounds = new BoundingVolumeHierarchy.BeamBounds(rays);
+        double[] ox = new double[n], oy = new double[n], oz = new double[n];
+        double[] ix = new double[n], iy = new double[n], iz = new double[n];
+        int[] signs = new int[n];
+        for (int i = 0; i < n; ++i) {
+            Point head = rays[i].getHead();
+            ox[i] = head.getX();
+            oy[i] = head.getY();
+            oz[i] = head.getZ();
+            ix[i] = rays[i].getInverseX();
+            iy[i] = rays[i].getInverseY();
+            iz[i] = rays[i].getInverseZ();
+            signs[i] = rays[i].getSigns();
+        }
+
+        // the packet of a node holds the rays that enter its box within their closest distance at the
+        // time it is pushed, with their entry distances: the packet of the root is in slot 0, and the
+        // packets of the children of a node of level L are in slots 2L+1 and 2L+2 until both are done
+        int levelCount = statistics.depth() + 1;
+        int[] packets = new int[(2 * levelCount + 1) * n];
+        double[] entries = new double[packets.length];
+        int[] stack = new int[levelCount];
+        int[] levels = new int[levelCount];
+        int[] slots = new int[levelCount];
+        int[] sizes = new int[levelCount];
+        int size = 0;
+        for (int i = 0; i < n; ++i) {
+            double entry = intersect(0, ox[i], oy[i], oz[i], ix[i], iy[i], iz[i], signs[i], hits[i].t);
+            if (entry == Double.POSITIVE_INFINITY) continue;
+            packets[size] = i;
+            entries[size++] = entry;
+        }
+
+        int top = 0;
+        int node = 0;
+        int level = 0;
+        int offset = 0;
+        while (true) {
+            // the rays that still reach the box before their closest hit
+            int count = 0;
+            double farthest = 0;
+            for (int k = offset, end = offset + size; k < end; ++k) {
+                int i = packets[k];
+                if (entries[k] > hits[i].t) continue;
+                packets[offset + count++] = i;
+                farthest = Math.max(farthest, hits[i].t);
+            }
+
+            if (count > 0 && links[2 * node + 1] > 0) {
+                for (int j = links[2 * node], end = j + links[2 * node + 1]; j < end; ++j)
+                    for (int k = offset, last = offset + count; k < last; ++k)
+                        objects[j].calculateClosestHit(rays[packets[k]], 0, hits[packets[k]]);
+            } else if (count > 0) {
+                // split the packet between the children, testing the whole beam against each box first
+                int left = node + 1, right = links[2 * node];
+                int leftOffset = (2 * level + 1) * n, rightOffset = leftOffset + n;
+                int leftSize = 0, rightSize = 0;
+                double leftSum = 0, rightSum = 0;
+                boolean leftMissed = count > 1 && beamBounds.misses(bounds, 6 * left, farthest);
+                boolean rightMissed = count > 1 && beamBounds.misses(bounds, 6 * right, farthest);
+                for (int k = offset, end = offset + count; k < end; ++k) {
+                    int i = packets[k];
+                    double entry = leftMissed ? Double.POSITIVE_INFINITY
+                            : intersect(left, ox[i], oy[i], oz[i], ix[i], iy[i], iz[i], signs[i], hits[i].t);
+                    if (entry != Double.POSITIVE_INFINITY) {
+                        packets[leftOffset + leftSize] = i;
+                        entries[leftOffset + leftSize++] = entry;
+                        leftSum += entry;
+                    }
+                    entry = rightMissed ? Double.POSITIVE_INFINITY
+                            : intersect(right, ox[i], oy[i], oz[i], ix[i], iy[i], iz[i], signs[i], hits[i].t);
+                    if (entry != Double.POSITIVE_INFINITY) {
+                        packets[rightOffset + rightSize] = i;
+                        entries[rightOffset + rightSize++] = entry;
+                        rightSum += entry;
+                    }
+                }
+                // push the child that the packet enters later first so that the nearer one is visited first
+                boolean leftFirst = leftSum * rightSize <= rightSum * leftSize;
+                if (leftFirst ? rightSize > 0 : leftSize > 0) {
+                    stack[top] = leftFirst ? right : left;
+                    slots[top] = leftFirst ? rightOffset : leftOffset;
+                    sizes[top] = leftFirst ? rightSize : leftSize;
+                    levels[top++] = level + 1;
+                }
+                if (leftFirst ? leftSize > 0 : rightSize > 0) {
+                    stack[top] = leftFirst ? left : right;
+                    slots[top] = leftFirst ? leftOffset : rightOffset;
+                    sizes[top] = leftFirst ? leftSize : rightSize;
+                    levels[top++] = level + 1;
+                }
+            }
+
+            if (top == 0) break;
+            node = stack[--top];
+            offset = slots[top];
+            size = sizes[top];
+            level = levels[top];
+        }
+        return BoundingVolumeHierarchy.toIntersections(rays, hits);
+    }
+
+    /**
+     * Finds all the intersections of a ray with the objects, skipping the subtrees
+     * whose boxes are missed by the ray
+     * @param ray the ray
+     * @return list of the intersections, or null if there are none
+     */
+    List<Intersection> calculateIntersections(Ray ray) {
+        List<Intersection> result = null;
+        for (Intersectable object : unbounded)
+            result = addIntersections(result, object.calculateIntersections(ray));
+        if (objects.length == 0) return result;
+
+        Point head = ray.getHead();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double ix = ray.getInverseX(), iy = ray.getInverseY(), iz = ray.getInverseZ();
+        int signs = ray.getSigns();
+        int[] stack = new int[statistics.depth() + 1];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (intersect(node, ox, oy, oz, ix, iy, iz, signs, Double.POSITIVE_INFINITY) == Double.POSITIVE_INFINITY)
+                continue;
+            int count = links[2 * node + 1];
+            if (count > 0) {
+                for (int i = links[2 * node], end = i + count; i < end; ++i)
+                    result = addIntersections(result, objects[i].calculateIntersections(ray));
+            } else {
+                stack[top++] = links[2 * node];
+                stack[top++] = node + 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether an opaque object intersects a ray before a maximal distance. The
+     * nodes are visited in any order, and the search stops on the first blocker.
+     * @param ray  the ray
+     * @param tMax the maximal distance along the ray (excluded)
+     * @param kMin an object whose transparency is lower than it is opaque
+     * @return true if the ray is blocked
+     */
+    boolean isOccluded(Ray ray, double tMax, double kMin) {
+        for (Intersectable object : unbounded)
+            if (object.isOccluded(ray, tMax, kMin)) return true;
+        if (objects.length == 0) return false;
+
+        Point head = ray.getHead();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double ix = ray.getInverseX(), iy = ray.getInverseY(), iz = ray.getInverseZ();
+        int signs = ray.getSigns();
+        int[] stack = new int[statistics.depth() + 1];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (intersect(node, ox, oy, oz, ix, iy, iz, signs, tMax) == Double.POSITIVE_INFINITY) continue;
+            int count = links[2 * node + 1];
+            if (count > 0) {
+                for (int i = links[2 * node], end = i + count; i < end; ++i)
+                    if (objects[i].isOccluded(ray, tMax, kMin)) return true;
+            } else {
+                stack[top++] = links[2 * node];
+                stack[top++] = node + 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Multiplies the transparency of the intersections of a ray before a maximal distance,
+     * and stops as soon as the product falls below the minimum
+     * @param ray  the ray
+     * @param tMax the maximal distance along the ray (excluded)
+     * @param k    the transmittance accumulated so far
+     * @param kMin the minimal transmittance of interest
+     * @return the accumulated transmittance, or {@link Double3#ZERO} if it fell below the minimum
+     */
+    Double3 calculateTransmittance(Ray ray, double tMax, Double3 k, double kMin) {
+        for (Intersectable object : unbounded) {
+            k = object.calculateTransmittance(ray, tMax, k, kMin);
+            if (k == Double3.ZERO) return k;
+        }
+        if (objects.length == 0) return k;
+
+        Point head = ray.getHead();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double ix = ray.getInverseX(), iy = ray.getInverseY(), iz = ray.getInverseZ();
+        int signs = ray.getSigns();
+        int[] stack = new int[statistics.depth() + 1];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (intersect(node, ox, oy, oz, ix, iy, iz, signs, tMax) == Double.POSITIVE_INFINITY) continue;
+            int count = links[2 * node + 1];
+            if (count > 0) {
+                for (int i = links[2 * node], end = i + count; i < end; ++i) {
+                    k = objects[i].calculateTransmittance(ray, tMax, k, kMin);
+                    if (k == Double3.ZERO) return k;
+                }
+            } else {
+                stack[top++] = links[2 * node];
+                stack[top++] = node + 1;
+            }
+        }
+        return k;
+    }
+
+    /**
+     * Slab test of a ray against the box of a node. A component of the inverse direction
+     * is infinite for a ray parallel to the slab - then a head between the planes gives
+     * NaN or infinite distances of opposite signs that do not narrow the interval,
+     * and a head outside of them gives infinite distances of the same sign.
+     * @param node        the node
+     * @param ox          x of the ray head
+     * @param oy          y of the ray head
+     * @param oz          z of the ray head
+     * @param ix          reciprocal of the x component of the ray direction
+     * @param iy          reciprocal of the y component of the ray direction
+     * @param iz          reciprocal of the z component of the ray direction
+     * @param signs       sign bits of the ray direction
+     * @param maxDistance the maximal distance along the ray that is of interest
+     * @return the distance where the ray enters the box, or {@link Double#POSITIVE_INFINITY} for a miss
+     */
+    private double intersect(int node, double ox, double oy, double oz, double ix, double iy, double iz,
+                             int signs, double maxDistance) {
+        int base = 6 * node;
+        // the near side is the minimal one (offset 0) for a positive component and the maximal one
+        // (offset 3) for a negative component, and the far side is the other one
+        int sx = 3 * (signs & 1), sy = 3 * (signs >> 1 & 1), sz = 3 * (signs >> 2 & 1);
+        double tNear = 0;
+        double tFar = maxDistance;
+        double t = (bounds[base + sx] - ox) * ix;
+        if (t > tNear) tNear = t;
+        t = (bounds[base + 1 + sy] - oy) * iy;
+        if (t > tNear) tNear = t;
+        t = (bounds[base + 2 + sz] - oz) * iz;
+        if (t > tNear) tNear = t;
+        t = (bounds[base + 3 - sx] - ox) * ix;
+        if (t < tFar) tFar = t;
+        t = (bounds[base + 4 - sy] - oy) * iy;
+        if (t < tFar) tFar = t;
+        t = (bounds[base + 5 - sz] - oz) * iz;
+        if (t < tFar) tFar = t;
+        return tNear > tFar + EPSILON * (1 + Math.abs(tFar)) ? Double.POSITIVE_INFINITY : tNear;
+    }
+
+    /**
+     * Appends intersections to a result list, allocating the list on demand
+     * @param result        the result list (may be null)
+     * @param intersections the intersections to add (may be null)
+     * @return the result list
+     */
+    private static List<Intersection> addIntersections(List<Intersection> result, List<Intersection> intersections) {
+        if (intersections == null || intersections.isEmpty()) return result;
+        if (result == null) return new LinkedList<>(intersections);
+        result.addAll(intersections);
+        return result;
+    }
+}
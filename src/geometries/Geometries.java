@@ -1,14 +1,29 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
 public class Geometries extends Intersectable {
     private final List<Intersectable> geometries = new LinkedList<>();
+    /** Bounding volume hierarchy over the geometries, null until it is built */
+    private BoundingVolumeHierarchy bvh = null;
+    /** The hierarchy compiled into flat arrays, null unless it was flattened */
+    private FlatBoundingVolumeHierarchy flatBvh = null;
+    /** Cached split of the geometries into bounded and unbounded ones, null until it is calculated */
+    private Partition partition = null;
+    /** Collections that contain this one - their cached data depends on this collection */
+    private final List<Geometries> parents = new LinkedList<>();
+    /** Instances of this collection as a prototype - their boxes depend on this collection */
+    final List<Instance> instances = new LinkedList<>();
+    /** Amount of changes of the collection and of the collections it contains */
+    private int version = 0;
 
     /**
      * Default constructor initializes an empty list of geometries.
@@ -39,6 +54,198 @@ public class Geometries extends Intersectable {
      */
     public void add(Intersectable...geometry) {
         this.geometries.addAll(List.of(geometry));
+        for (Intersectable geo : geometry)
+            if (geo instanceof Geometries group) group.parents.add(this);
+            else if (geo instanceof DynamicGeometries dynamic) dynamic.parents.add(this);
+            else if (geo instanceof Instance instance) instance.parents.add(this);
+        invalidate();
+    }
+
+    /**
+     * Drops the cached bounds and acceleration structure of this collection and
+     * of all the collections that contain it or its instances, after a geometry was
+     * added or a contained {@link DynamicGeometries} or prototype of a contained
+     * {@link Instance} was changed.
+     */
+    void invalidate() {
+        ++version;
+        bvh = null;
+        flatBvh = null;
+        partition = null;
+        for (Geometries parent : parents) parent.invalidate();
+        for (Instance instance : instances) instance.invalidate();
+    }
+
+    /**
+     * Checks whether the collection has a bounding volume hierarchy, flat or not
+     *
+     * @return true if a hierarchy was built since the last change
+     */
+    boolean hasBVH() {
+        return bvh != null || flatBvh != null;
+    }
+
+    /**
+     * Returns the version of the collection - it changes whenever a geometry is added to
+     * it or to a collection it contains, so that the users that keep data of the geometries
+     * (such as a grid of a ray tracer) know when to calculate it again.
+     *
+     * @return the version
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the geometries of the collection.
+     *
+     * @return unmodifiable view of the geometries
+     */
+    public List<Intersectable> getGeometries() {
+        return Collections.unmodifiableList(geometries);
+    }
+
+    /**
+     * Builds a bounding volume hierarchy over the geometries, by the surface area heuristic.
+     * The hierarchy is used by the intersection queries until another geometry is added,
+     * then it must be built again.
+     *
+     * @return this Geometries instance for method chaining
+     */
+    public Geometries buildBVH() {
+        bvh = new BoundingVolumeHierarchy(geometries);
+        flatBvh = null;
+        return this;
+    }
+
+    /**
+     * Builds a bounding volume hierarchy over the geometries, by the binned surface area
+     * heuristic, splitting the subtrees between threads of a dedicated fork-join pool.
+     * The resulting tree does not depend on the amount of threads.
+     *
+     * @param threads the amount of threads to build with
+     * @return this Geometries instance for method chaining
+     * @throws IllegalArgumentException if threads is not positive
+     */
+    public Geometries buildBVH(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("Amount of threads must be positive");
+        bvh = new BoundingVolumeHierarchy(geometries, threads);
+        flatBvh = null;
+        return this;
+    }
+
+    /**
+     * Prepares a lazy bounding volume hierarchy over the geometries: a node is split
+     * only when a ray reaches it for the first time, so a view of a small part of a big
+     * scene does not pay for building the rest of it. Rendering threads may share it.
+     * Like the other hierarchies, it is dropped when another geometry is added.
+     *
+     * @return this Geometries instance for method chaining
+     */
+    public Geometries buildLazyBVH() {
+        bvh = BoundingVolumeHierarchy.lazy(geometries);
+        flatBvh = null;
+        return this;
+    }
+
+    /**
+     * Compiles the bounding volume hierarchy into flat arrays of numbers, building it first
+     * if it was not built. The flat hierarchy finds the same intersections with fewer
+     * objects on the heap, and replaces the tree of nodes until another geometry is added.
+     *
+     * @return this Geometries instance for method chaining
+     */
+    public Geometries flattenBVH() {
+        if (flatBvh != null) return this;
+        if (bvh == null) buildBVH();
+        flatBvh = bvh.flatten();
+        bvh = null;
+        return this;
+    }
+
+    /**
+     * Returns the build statistics of the bounding volume hierarchy.
+     *
+     * @return the statistics, or null if the hierarchy was not built
+     */
+    public BoundingVolumeHierarchy.Statistics getBVHStatistics() {
+        if (flatBvh != null) return flatBvh.getStatistics();
+        return bvh == null ? null : bvh.getStatistics();
+    }
+
+    /**
+     * Returns the split of the geometries into bounded and unbounded ones, calculating it
+     * on the first call after a change
+     *
+     * @return the split
+     */
+    private Partition getPartition() {
+        Partition result = partition;
+        if (result == null) partition = result = new Partition(geometries);
+        return result;
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return getPartition().box;
+    }
+
+    @Override
+    public boolean calculateClosestHit(Ray ray, double tMin, Hit hit) {
+        if (flatBvh != null) return flatBvh.findClosestHit(ray, tMin, hit);
+        if (bvh != null) return bvh.findClosestHit(ray, tMin, hit);
+        Partition split = getPartition();
+        boolean found = false;
+        // the unbounded geometries first - a hit on them shortens the slab test of the bounded ones
+        for (Intersectable geo : split.unbounded)
+            found |= geo.calculateClosestHit(ray, tMin, hit);
+        if (split.boundedBox.intersect(ray, hit.t) == Double.POSITIVE_INFINITY) return found;
+        for (Intersectable geo : split.bounded)
+            found |= geo.calculateClosestHit(ray, tMin, hit);
+        return found;
+    }
+
+    @Override
+    public boolean isOccluded(Ray ray, double tMax, double kMin) {
+        if (flatBvh != null) return flatBvh.isOccluded(ray, tMax, kMin);
+        if (bvh != null) return bvh.isOccluded(ray, tMax, kMin);
+        Partition split = getPartition();
+        for (Intersectable geo : split.unbounded)
+            if (geo.isOccluded(ray, tMax, kMin)) return true;
+        if (split.boundedBox.intersect(ray, tMax) == Double.POSITIVE_INFINITY) return false;
+        for (Intersectable geo : split.bounded)
+            if (geo.isOccluded(ray, tMax, kMin)) return true;
+        return false;
+    }
+
+    @Override
+    public boolean isOpaque(double kMin) {
+        for (Intersectable geo : geometries)
+            if (!geo.isOpaque(kMin)) return false;
+        return true;
+    }
+
+    @Override
+    public Double3 calculateTransmittance(Ray ray, double tMax, Double3 k, double kMin) {
+        if (flatBvh != null) return flatBvh.calculateTransmittance(ray, tMax, k, kMin);
+        if (bvh != null) return bvh.calculateTransmittance(ray, tMax, k, kMin);
+        Partition split = getPartition();
+        for (Intersectable geo : split.unbounded) {
+            k = geo.calculateTransmittance(ray, tMax, k, kMin);
+            if (k == Double3.ZERO) return k;
+        }
+        if (split.boundedBox.intersect(ray, tMax) == Double.POSITIVE_INFINITY) return k;
+        for (Intersectable geo : split.bounded) {
+            k = geo.calculateTransmittance(ray, tMax, k, kMin);
+            if (k == Double3.ZERO) return k;
+        }
+        return k;
+    }
+
+    @Override
+    public Intersection[] calculateClosestIntersections(List<Ray> rays) {
+        if (flatBvh != null) return flatBvh.findClosestIntersections(rays);
+        return bvh != null ? bvh.findClosestIntersections(rays) : super.calculateClosestIntersections(rays);
     }
 
     /**
@@ -48,8 +255,24 @@ public class Geometries extends Intersectable {
      * @param ray The Ray object to be added to the geometries.
      */
     public List<Intersection> calculateIntersectionsHelper(Ray ray) {
+        if (flatBvh != null) return flatBvh.calculateIntersections(ray);
+        if (bvh != null) return bvh.calculateIntersections(ray);
+        Partition split = getPartition();
         List<Intersection> totalIntersections = null;
-        for (Intersectable geo : geometries) {
+        for (Intersectable geo : split.unbounded) {
+            List<Intersection> intersections = geo.calculateIntersections(ray);
+            if (intersections != null && !intersections.isEmpty()) {
+                if (totalIntersections == null) {
+                    totalIntersections = new LinkedList<>(intersections);
+                } else {
+                    totalIntersections.addAll(intersections);
+                }
+            }
+        }
+        // slab test of the bounded geometries before descending into them
+        if (split.boundedBox.intersect(ray, Double.POSITIVE_INFINITY) == Double.POSITIVE_INFINITY)
+            return totalIntersections;
+        for (Intersectable geo : split.bounded) {
             List<Intersection> intersections = geo.calculateIntersections(ray);
             if (intersections != null && !intersections.isEmpty()) {
                 if (totalIntersections == null) {
@@ -62,8 +285,46 @@ public class Geometries extends Intersectable {
         return totalIntersections;
     }
 
+    /**
+     * The geometries of a collection split into the bounded ones and the unbounded ones
+     * (such as planes and tubes), which cannot be culled by a box. Without a hierarchy,
+     * the unbounded geometries are tested directly, and the bounded ones only when the
+     * ray reaches their common box - so a ground plane does not disable the culling of
+     * the rest of the collection. Calculated at once, so that threads that calculate it
+     * together see complete data.
+     */
+    private static final class Partition {
+        /** The bounded geometries */
+        final Intersectable[] bounded;
+        /** The unbounded geometries */
+        final Intersectable[] unbounded;
+        /** The box of the bounded geometries ({@link BoundingBox#EMPTY} if there are none) */
+        final BoundingBox boundedBox;
+        /** The box of the whole collection ({@link BoundingBox#INFINITE} if any geometry is unbounded) */
+        final BoundingBox box;
 
-
-
-
-}
\ No newline at end of file
+        /**
+         * Splits the geometries
+         *
+         * @param geometries the geometries of the collection
+         */
+        Partition(List<Intersectable> geometries) {
+            List<Intersectable> boundedList = new ArrayList<>();
+            List<Intersectable> unboundedList = new ArrayList<>();
+            BoundingBox union = null;
+            for (Intersectable geo : geometries) {
+                BoundingBox geoBox = geo.getBoundingBox();
+                if (geoBox.isInfinite()) {
+                    unboundedList.add(geo);
+                } else {
+                    boundedList.add(geo);
+                    union = union == null ? geoBox : union.union(geoBox);
+                }
+            }
+            bounded = boundedList.toArray(new Intersectable[0]);
+            unbounded = unboundedList.toArray(new Intersectable[0]);
+            boundedBox = union != null ? union : BoundingBox.EMPTY;
+            box = unbounded.length > 0 ? BoundingBox.INFINITE : boundedBox;
+        }
+    }
+}
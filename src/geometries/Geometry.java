@@ -1,7 +1,9 @@
 package geometries;
 import primitives.Color;
+import primitives.Double3;
 import primitives.Material;
 import primitives.Point;
+import primitives.Ray;
 import primitives.Vector;
 
 /**
@@ -47,4 +49,29 @@ abstract public class Geometry extends Intersectable {
         this.material = material;
         return this;
     }
+
+    @Override
+    public boolean isOccluded(Ray ray, double tMax, double kMin) {
+        // a transparent geometry does not block the ray, whether it is hit or not
+        return material.kT.lowerThan(kMin) && calculateClosestHit(ray, 0, new Hit(tMax));
+    }
+
+    @Override
+    public boolean isOpaque(double kMin) {
+        return material.kT.lowerThan(kMin);
+    }
+
+    @Override
+    public Double3 calculateTransmittance(Ray ray, double tMax, Double3 k, double kMin) {
+        // the hits are taken one by one from near to far, each one after the previous one
+        Hit hit = new Hit(tMax);
+        double tMin = 0;
+        while (calculateClosestHit(ray, tMin, hit)) {
+            k = k.product(material.kT);
+            if (k.lowerThan(kMin)) return Double3.ZERO;
+            tMin = hit.t;
+            hit.t = tMax;
+        }
+        return k;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,211 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Transform;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * A copy of a shared collection of geometries (the prototype), placed in the scene
+ * by an affine transformation.<br/>
+ * The instance keeps only a reference to the prototype and the transformation, so
+ * the memory of a scene grows with the amount of different prototypes and not with
+ * the amount of their copies. Rays are moved into the space of the prototype and
+ * tested against its bounding volume hierarchy, which is built once for all of its
+ * instances. Putting the instances themselves into a {@link Geometries} with a
+ * hierarchy of its own gives a two-level structure. When a geometry is added to the
+ * prototype, the collections that contain its instances drop their cached data, and
+ * the hierarchy of the prototype is built again with the next box of an instance.<br/>
+ * The intersections carry their normal, transformed to the scene.
+ */
+public class Instance extends Intersectable {
+    /** The shared geometries, in their own space */
+    private final Geometries prototype;
+    /** Transformation from the space of the prototype to the scene */
+    private final Transform transform;
+    /** Transformation from the scene to the space of the prototype */
+    private final Transform inverse;
+    /** Cached box of the instance in the scene, null until it is calculated after a change of the prototype */
+    private BoundingBox box = null;
+    /** Collections that contain this instance - their cached data depends on the prototype */
+    final List<Geometries> parents = new LinkedList<>();
+
+    /**
+     * Creates an instance of a prototype. If the prototype has no bounding volume
+     * hierarchy yet, it is built here and shared by all the instances.
+     *
+     * @param prototype the shared geometries
+     * @param transform transformation from the space of the prototype to the scene
+     */
+    public Instance(Geometries prototype, Transform transform) {
+        this.prototype = prototype;
+        this.transform = transform;
+        this.inverse = transform.inverse();
+        if (!prototype.hasBVH()) prototype.buildBVH();
+        prototype.instances.add(this);
+    }
+
+    /**
+     * Drops the cached box of the instance and the cached data of the collections that
+     * contain it, after the prototype was changed
+     */
+    void invalidate() {
+        box = null;
+        for (Geometries parent : parents) parent.invalidate();
+    }
+
+    /**
+     * Returns the shared geometries of the instance
+     *
+     * @return the prototype
+     */
+    public Geometries getPrototype() {
+        return prototype;
+    }
+
+    /**
+     * Returns the transformation of the instance
+     *
+     * @return the transformation from the space of the prototype to the scene
+     */
+    public Transform getTransform() {
+        return transform;
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        BoundingBox result = box;
+        if (result == null) {
+            // the prototype was changed - the instances share its new hierarchy
+            synchronized (prototype) {
+                if (!prototype.hasBVH()) prototype.buildBVH();
+            }
+            box = result = transformBox(transform, prototype.getBoundingBox());
+        }
+        return result;
+    }
+
+    @Override
+    public boolean calculateClosestHit(Ray ray, double tMin, Hit hit) {
+        return closestHit(prototype, transform, inverse, ray, tMin, hit);
+    }
+
+    @Override
+    public boolean isOccluded(Ray ray, double tMax, double kMin) {
+        return isOccluded(prototype, inverse, ray, tMax, kMin);
+    }
+
+    @Override
+    public boolean isOpaque(double kMin) {
+        return prototype.isOpaque(kMin);
+    }
+
+    @Override
+    public Double3 calculateTransmittance(Ray ray, double tMax, Double3 k, double kMin) {
+        return calculateTransmittance(prototype, inverse, ray, tMax, k, kMin);
+    }
+
+    @Override
+    protected List<Intersection> calculateIntersectionsHelper(Ray ray) {
+        List<Intersection> local = prototype.calculateIntersections(inverse.applyToRay(ray));
+        if (local == null) return null;
+        List<Intersection> world = new LinkedList<>();
+        for (Intersection intersection : local) world.add(toWorld(transform, intersection));
+        return world;
+    }
+
+    /**
+     * Moves an intersection that was found in the local space of an object to the scene.
+     * The normal is calculated in the local space and moved along, since the geometry
+     * itself does not know about the transformation.
+     *
+     * @param transform transformation from the local space of the object to the scene
+     * @param local     the intersection in the local space
+     * @return the intersection in the scene
+     */
+    static Intersection toWorld(Transform transform, Intersection local) {
+        Intersection world = new Intersection(local.geometry, transform.applyToPoint(local.point));
+        world.n = transform.applyToNormal(local.n != null ? local.n : local.geometry.getNormal(local.point));
+        return world;
+    }
+
+    /**
+     * Closest-hit query of a transformed object. The ray is moved into the local space of
+     * the object, where the distances along it are scaled by the length of its transformed
+     * direction - an affine transformation keeps the order of the points along a line.
+     * The normal of the hit is calculated in the local space and moved to the scene.
+     *
+     * @param object    the object in its local space
+     * @param transform transformation from the local space of the object to the scene
+     * @param inverse   transformation from the scene to the local space of the object
+     * @param ray       the ray in the scene
+     * @param tMin      the minimal distance along the ray (excluded)
+     * @param hit       the hit recorded so far - updated if a nearer hit is found
+     * @return true if a nearer hit was found
+     */
+    static boolean closestHit(Intersectable object, Transform transform, Transform inverse,
+                              Ray ray, double tMin, Hit hit) {
+        Ray localRay = inverse.applyToRay(ray);
+        double scale = inverse.applyToVector(ray.getDirection()).length();
+        Hit local = new Hit(hit.t * scale);
+        if (!object.calculateClosestHit(localRay, tMin * scale, local)) return false;
+        hit.t = local.t / scale;
+        hit.geometry = local.geometry;
+        hit.normal = transform.applyToNormal(local.normal != null ? local.normal
+                : local.geometry.getNormal(localRay.getPoint(local.t)));
+        return true;
+    }
+
+    /**
+     * Occlusion query of a transformed object, in its local space
+     *
+     * @param object  the object in its local space
+     * @param inverse transformation from the scene to the local space of the object
+     * @param ray     the ray in the scene
+     * @param tMax    the maximal distance along the ray (excluded)
+     * @param kMin    an object whose transparency is lower than it is opaque
+     * @return true if the ray is blocked
+     */
+    static boolean isOccluded(Intersectable object, Transform inverse, Ray ray, double tMax, double kMin) {
+        double scale = inverse.applyToVector(ray.getDirection()).length();
+        return object.isOccluded(inverse.applyToRay(ray), tMax * scale, kMin);
+    }
+
+    /**
+     * Transmittance query of a transformed object, in its local space
+     *
+     * @param object  the object in its local space
+     * @param inverse transformation from the scene to the local space of the object
+     * @param ray     the ray in the scene
+     * @param tMax    the maximal distance along the ray (excluded)
+     * @param k       the transmittance accumulated so far
+     * @param kMin    the minimal transmittance of interest
+     * @return the accumulated transmittance, or {@link Double3#ZERO} if it fell below the minimum
+     */
+    static Double3 calculateTransmittance(Intersectable object, Transform inverse, Ray ray,
+                                          double tMax, Double3 k, double kMin) {
+        double scale = inverse.applyToVector(ray.getDirection()).length();
+        return object.calculateTransmittance(inverse.applyToRay(ray), tMax * scale, k, kMin);
+    }
+
+    /**
+     * Calculates the box of a transformed object - the box of the transformed corners of its box
+     *
+     * @param transform transformation from the local space of the object to the scene
+     * @param box       the box of the object in its local space
+     * @return the box in the scene (infinite and empty boxes stay as they are)
+     */
+    static BoundingBox transformBox(Transform transform, BoundingBox box) {
+        if (box.isInfinite() || box.isEmpty()) return box;
+        Point[] corners = new Point[8];
+        for (int i = 0; i < 8; ++i)
+            corners[i] = transform.applyToPoint(new Point(
+                    (i & 1) == 0 ? box.minX : box.maxX,
+                    (i & 2) == 0 ? box.minY : box.maxY,
+                    (i & 4) == 0 ? box.minZ : box.maxZ));
+        return new BoundingBox(corners);
+    }
+}
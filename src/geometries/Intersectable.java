@@ -3,6 +3,7 @@ package geometries;
 import java.util.List;
 
 import lighting.LightSource;
+import primitives.Double3;
 import primitives.Material;
 import primitives.Point;
 import primitives.Ray;
@@ -87,6 +88,42 @@ public  abstract class Intersectable {
 
     }
 
+    /**
+     * Record of the closest hit of a ray that a closest-hit query has found so far.
+     * Only the parametric distance of the hit along the ray and the geometry are kept -
+     * the point is calculated once, for the final hit.
+     */
+    public static class Hit {
+        /** Parametric distance of the hit along the ray - before a hit is found, the maximal distance of the query */
+        public double t;
+        /** The hit geometry, null before a hit is found */
+        public Geometry geometry = null;
+        /** Normal at the hit, set only by geometries that are transformed into the scene */
+        public Vector normal = null;
+
+        /**
+         * Creates an empty record for a query up to a maximal distance
+         *
+         * @param tMax the maximal parametric distance along the ray
+         */
+        public Hit(double tMax) {
+            this.t = tMax;
+        }
+
+        /**
+         * Creates the intersection of the recorded hit
+         *
+         * @param ray the ray of the query
+         * @return the intersection, or null if no hit was recorded
+         */
+        public Intersection toIntersection(Ray ray) {
+            if (geometry == null) return null;
+            Intersection intersection = new Intersection(geometry, ray.getPoint(t));
+            intersection.n = normal;
+            return intersection;
+        }
+    }
+
     /**
      * Calculate intersections of a ray with the geometry object.
      * This method is public to allow access from outside the class.
@@ -98,6 +135,141 @@ public  abstract class Intersectable {
         return calculateIntersectionsHelper(ray);
     }
 
+    /**
+     * Find the closest intersection of a ray with the geometry object.
+     *
+     * @param ray the ray to which we find the closest intersection with
+     * @return the closest intersection to the ray's head, or null if there are no intersections
+     */
+    public Intersection calculateClosestIntersection(Ray ray) {
+        return calculateClosestIntersection(ray, 0, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Find the closest intersection of a ray with the geometry object within an interval
+     * of parametric distances along the ray.
+     *
+     * @param ray  the ray to which we find the closest intersection with
+     * @param tMin the minimal distance (excluded)
+     * @param tMax the maximal distance (excluded)
+     * @return the closest intersection in the interval, or null if there is none
+     */
+    public Intersection calculateClosestIntersection(Ray ray, double tMin, double tMax) {
+        Hit hit = new Hit(tMax);
+        return calculateClosestHit(ray, tMin, hit) ? hit.toIntersection(ray) : null;
+    }
+
+    /**
+     * Closest-hit query: looks for a hit of a ray that is nearer than the hit recorded so far
+     * (or than the maximal distance of the query), and records it. The recorded distance
+     * only shrinks, so geometries and nodes of acceleration structures that are farther than
+     * it are not tested at all, and no intersection objects are created on the way.<br/>
+     * Geometries override it with a direct calculation of the distance; the default
+     * implementation takes the closest of all the intersections.
+     *
+     * @param ray  the ray
+     * @param tMin the minimal parametric distance along the ray (excluded)
+     * @param hit  the hit recorded so far - updated if a nearer hit is found
+     * @return true if a nearer hit was found
+     */
+    public boolean calculateClosestHit(Ray ray, double tMin, Hit hit) {
+        List<Intersection> intersections = calculateIntersections(ray);
+        if (intersections == null) return false;
+        Point head = ray.getHead();
+        double length = ray.getDirection().length();
+        boolean found = false;
+        for (Intersection intersection : intersections) {
+            double t = intersection.point.distance(head) / length;
+            if (t > tMin && t < hit.t) {
+                hit.t = t;
+                hit.geometry = intersection.geometry;
+                hit.normal = intersection.n;
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Find the closest intersections of a beam of rays with the geometry object.
+     * Acceleration structures override it in order to test the whole beam against
+     * their nodes together, instead of visiting the same nodes once per ray.
+     *
+     * @param rays the rays of the beam
+     * @return the closest intersection of each ray, in the order of the rays (null for a ray without one)
+     */
+    public Intersection[] calculateClosestIntersections(List<Ray> rays) {
+        Intersection[] result = new Intersection[rays.size()];
+        int i = 0;
+        for (Ray ray : rays) result[i++] = calculateClosestIntersection(ray);
+        return result;
+    }
+
+    /**
+     * Any-hit occlusion query: checks whether an opaque geometry intersects the ray
+     * before a maximal distance. The search stops on the first such geometry, in any
+     * order, and transparent geometries are not tested at all.
+     *
+     * @param ray  the ray
+     * @param tMax the maximal parametric distance along the ray (excluded), e.g. the distance to a light
+     * @param kMin a geometry whose transparency is lower than it in all the components is opaque
+     * @return true if the ray is blocked
+     */
+    public boolean isOccluded(Ray ray, double tMax, double kMin) {
+        List<Intersection> intersections = calculateIntersections(ray);
+        if (intersections == null) return false;
+        Point head = ray.getHead();
+        double length = ray.getDirection().length();
+        for (Intersection intersection : intersections)
+            if (intersection.material.kT.lowerThan(kMin) && intersection.point.distance(head) / length < tMax)
+                return true;
+        return false;
+    }
+
+    /**
+     * Transmittance query: multiplies the transparency of all the intersections of the
+     * ray before a maximal distance. The search stops as soon as the product falls
+     * below the minimum.
+     *
+     * @param ray  the ray
+     * @param tMax the maximal parametric distance along the ray (excluded), e.g. the distance to a light
+     * @param k    the transmittance accumulated so far
+     * @param kMin the minimal transmittance of interest
+     * @return the accumulated transmittance, or {@link Double3#ZERO} if it fell below the minimum
+     */
+    public Double3 calculateTransmittance(Ray ray, double tMax, Double3 k, double kMin) {
+        List<Intersection> intersections = calculateIntersections(ray);
+        if (intersections == null) return k;
+        Point head = ray.getHead();
+        double length = ray.getDirection().length();
+        for (Intersection intersection : intersections) {
+            if (intersection.point.distance(head) / length >= tMax) continue;
+            k = k.product(intersection.material.kT);
+            if (k.lowerThan(kMin)) return Double3.ZERO;
+        }
+        return k;
+    }
+
+    /**
+     * Checks whether every geometry of the object is opaque, so that a ray through it
+     * is either blocked or not, and its transmittance is either zero or one.
+     * The default answer is false - the object may be transparent.
+     *
+     * @param kMin a geometry whose transparency is lower than it in all the components is opaque
+     * @return true if all the geometries are opaque
+     */
+    public boolean isOpaque(double kMin) {
+        return false;
+    }
+
+    /**
+     * Returns the axis-aligned bounding box of the geometry object.
+     * Every ray that intersects the object must pass through its box.
+     *
+     * @return the bounding box, or {@link BoundingBox#INFINITE} for unbounded objects
+     */
+    public abstract BoundingBox getBoundingBox();
+
 
 
 
@@ -21,6 +21,11 @@ public class Plane extends Geometry {
      */
     protected final Vector normal;
 
+    /**
+     * The dot product of the normal and the reference point - the plane is n·p = nq0
+     */
+    private final double nq0;
+
     /**
      * Constructor for creating a plane from three points
      * @param p1 First point
@@ -35,6 +40,7 @@ public class Plane extends Geometry {
 
         // The normal is the cross product of the two vectors
         this.normal = v1.crossProduct(v2).normalize();
+        this.nq0 = dot(this.normal, q0);
     }
 
     /**
@@ -45,6 +51,7 @@ public class Plane extends Geometry {
     public Plane(Point q0, Vector normal) {
         this.q0 = q0;
         this.normal = normal.normalize();
+        this.nq0 = dot(this.normal, q0);
     }
 
     /**
@@ -64,31 +71,61 @@ public class Plane extends Geometry {
     public Vector getNormal() {
         return normal;
     }
+    /**
+     * A plane is unbounded
+     * @return {@link BoundingBox#INFINITE}
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        return BoundingBox.INFINITE;
+    }
+
     /**
      * Calculates the intersections of a ray with the plane
      * @param ray The ray to check for intersections
      * @return A list of intersections, or null if there are no intersections
      */
     public List<Intersection> calculateIntersectionsHelper(Ray ray) {
-        Point head = ray.getHead();
-        if (q0.equals(head))  // ray starts exactly on the plane's reference point
-            return null;
+        double t = distance(ray);
+        return t > 0 ? List.of(new Intersection(this, ray.getPoint(t))) : null;
+    }
 
-        Vector u = q0.subtract(head);
-        double numerator = u.dotProduct(normal);
+    @Override
+    public boolean calculateClosestHit(Ray ray, double tMin, Hit hit) {
+        double t = distance(ray);
+        if (t <= 0 || t <= tMin || t >= hit.t) return false;
+        hit.t = t;
+        hit.geometry = this;
+        hit.normal = null;
+        return true;
+    }
+
+    /**
+     * Calculates the parametric distance along a ray to its intersection with the plane
+     * @param ray The ray
+     * @return the distance, or 0 if the ray does not intersect the plane
+     */
+    double distance(Ray ray) {
+        // n·(q0 - head), without creating the vector - zero when the ray starts on the plane
+        double numerator = nq0 - dot(normal, ray.getHead());
         double denominator = normal.dotProduct(ray.getDirection());
 
         // Ray is parallel to the plane
         if (Util.isZero(denominator))
-            return null;
-
-        double t = Util.alignZero(numerator / denominator);
+            return 0;
 
         // No intersection if t <= 0 (i.e., point is behind the ray's head or at the head)
-        if (t <= 0)
-            return null;
+        return Math.max(0, Util.alignZero(numerator / denominator));
+    }
 
-        return List.of(new Intersection(this, ray.getPoint(t)));
+    /**
+     * Calculates the dot product of a vector and the coordinates of a point
+     * @param v the vector
+     * @param p the point
+     * @return the dot product
+     */
+    private static double dot(Vector v, Point p) {
+        return v.getX() * p.getX() + v.getY() * p.getY() + v.getZ() * p.getZ();
     }
 
 }
@@ -19,6 +19,8 @@ public class Polygon extends Geometry {
    protected final Plane       plane;
    /** The size of the polygon - the amount of the vertices in the polygon */
    private final int           size;
+   /** The polygon projected to a coordinate plane, for locating points in it */
+   private final Projection    projection;
 
    /**
     * Polygon constructor based on vertices list. The list must be ordered by edge
@@ -51,6 +53,7 @@ public class Polygon extends Geometry {
       // polygon with this plane.
       // The plane holds the invariant normal (orthogonal unit) vector to the polygon
       plane         = new Plane(vertices[0], vertices[1], vertices[2]);
+      projection    = new Projection(vertices, plane.getNormal());
       if (size == 3) return; // no need for more tests for a Triangle
 
       Vector  n        = plane.getNormal();
@@ -86,44 +89,141 @@ public class Polygon extends Geometry {
    @Override
    public Vector getNormal(Point point) { return plane.getNormal(); }
 
+   @Override
+   public BoundingBox getBoundingBox() { return new BoundingBox(vertices.toArray(new Point[0])); }
+
    /**
     * Calculates intersections of the polygon with a ray
     * @param ray the ray to calculate intersections with
     * @return list of intersections, or null if there are no intersections
     */
    public List<Intersection> calculateIntersectionsHelper(Ray ray) {
-      List<Intersection> planeIntersections = plane.calculateIntersections(ray);
-      if (planeIntersections == null) {
-         return null;
-      }
+      double t = plane.distance(ray);
+      return t > 0 && isInside(ray, t) ? List.of(new Intersection(this, ray.getPoint(t))) : null;
+   }
 
-      Point rayHead = ray.getHead();
-      Vector rayDirection = ray.getDirection();
+   @Override
+   public boolean calculateClosestHit(Ray ray, double tMin, Hit hit) {
+      // the cheap plane distance first - the point is located only for a nearer hit
+      double t = plane.distance(ray);
+      if (t <= 0 || t <= tMin || t >= hit.t || !isInside(ray, t)) return false;
+      hit.t = t;
+      hit.geometry = this;
+      hit.normal = null;
+      return true;
+   }
 
-      int size = vertices.size();
-      Vector[] normals = new Vector[size];
+   /**
+    * Checks whether the point where a ray intersects the plane of the polygon is inside it
+    * @param ray the ray
+    * @param t   the distance along the ray to the plane
+    * @return true if the point is inside the polygon (not on its edges)
+    */
+   private boolean isInside(Ray ray, double t) {
+      Point head = ray.getHead();
+      Vector dir = ray.getDirection();
+      // the point is calculated by its coordinates only, no objects are created
+      return projection.contains(
+            head.getX() + t * dir.getX(), head.getY() + t * dir.getY(), head.getZ() + t * dir.getZ());
+   }
 
-      for (int i = 0; i < size; i++) {
-         Point pi = vertices.get(i);
-         Point pj = vertices.get((i + 1) % size);
+   /**
+    * The polygon projected to the coordinate plane where its area is the largest (the
+    * plane that is orthogonal to the largest component of its normal). Projecting keeps
+    * the polygon convex, so a point is located by a binary search over the wedges of the
+    * fan of the first vertex, in O(log n) steps.
+    */
+   private static final class Projection {
+      /** The first projected coordinate of the vertices */
+      private final double[] us;
+      /** The second projected coordinate of the vertices */
+      private final double[] vs;
+      /** The axis (0, 1 or 2 for x, y or z) of the first projected coordinate */
+      private final int uAxis;
+      /** The axis of the second projected coordinate */
+      private final int vAxis;
+      /** 1 if the projected vertices turn counter-clockwise, -1 if clockwise */
+      private final double turn;
+
+      /**
+       * Projects the vertices of a polygon
+       * @param vertices the vertices
+       * @param normal   the normal of the polygon
+       */
+      Projection(Point[] vertices, Vector normal) {
+         double nx = Math.abs(normal.getX()), ny = Math.abs(normal.getY()), nz = Math.abs(normal.getZ());
+         int drop = nx >= ny && nx >= nz ? 0 : ny >= nz ? 1 : 2;
+         uAxis = (drop + 1) % 3;
+         vAxis = (drop + 2) % 3;
+         int size = vertices.length;
+         us = new double[size];
+         vs = new double[size];
+         for (int i = 0; i < size; ++i) {
+            us[i] = coordinate(vertices[i], uAxis);
+            vs[i] = coordinate(vertices[i], vAxis);
+         }
+         turn = cross(0, 1, us[2], vs[2]) > 0 ? 1 : -1;
+      }
 
-         Vector vi = pi.subtract(rayHead);
-         Vector vj = pj.subtract(rayHead);
+      /**
+       * Checks whether a point of the plane of the polygon is inside it
+       * @param x x of the point
+       * @param y y of the point
+       * @param z z of the point
+       * @return true if the point is inside the polygon (not on its edges)
+       */
+      boolean contains(double x, double y, double z) {
+         double u = uAxis == 0 ? x : uAxis == 1 ? y : z;
+         double v = vAxis == 0 ? x : vAxis == 1 ? y : z;
+         int last = us.length - 1;
+         // the point must be inside the fan of the first vertex - between its two edges
+         if (side(0, 1, u, v) <= 0 || side(last, 0, u, v) <= 0) return false;
+         // the wedge of the fan that contains the point: the diagonals from the first vertex
+         // to low and to high are on its two sides
+         int low = 1, high = last;
+         while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (cross(0, mid, u, v) * turn > 0) low = mid;
+            else high = mid;
+         }
+         return side(low, high, u, v) > 0;
+      }
 
-         normals[i] = vi.crossProduct(vj).normalize();
+      /**
+       * Calculates on which side of an edge a point is, by the cross product of the edge
+       * and the vector from its start to the point
+       * @param from start vertex of the edge
+       * @param to   end vertex of the edge
+       * @param u    first coordinate of the point
+       * @param v    second coordinate of the point
+       * @return the distance of the point from the line of the edge - positive inside, zero on it
+       */
+      private double side(int from, int to, double u, double v) {
+         double eu = us[to] - us[from], ev = vs[to] - vs[from];
+         return alignZero(cross(from, to, u, v) * turn / Math.sqrt(eu * eu + ev * ev));
       }
-      double dotProduct = alignZero(normals[0].dotProduct(rayDirection));
-      if (dotProduct == 0)
-         return null;
 
-      boolean isPositive = dotProduct > 0;
+      /**
+       * Calculates the cross product of the vector between two vertices and the vector
+       * from the first of them to a point
+       * @param from the first vertex
+       * @param to   the second vertex
+       * @param u    first coordinate of the point
+       * @param v    second coordinate of the point
+       * @return the cross product
+       */
+      private double cross(int from, int to, double u, double v) {
+         return (us[to] - us[from]) * (v - vs[from]) - (vs[to] - vs[from]) * (u - us[from]);
+      }
 
-      for (int i = 1; i < size; i++) {
-         dotProduct = alignZero(normals[i].dotProduct(rayDirection));
-         if (dotProduct == 0 || (dotProduct > 0) != isPositive)
-            return null;  // Return null if dotProduct is zero or signs don't match
+      /**
+       * Returns a coordinate of a point
+       * @param p    the point
+       * @param axis the axis (0, 1 or 2 for x, y or z)
+       * @return the coordinate
+       */
+      private static double coordinate(Point p, int axis) {
+         return axis == 0 ? p.getX() : axis == 1 ? p.getY() : p.getZ();
       }
-      return List.of(new Intersection(this, planeIntersections.getFirst().point));
    }
-
 }
\ No newline at end of file
@@ -11,6 +11,11 @@ abstract public class RadialGeometry extends Geometry {
      */
     protected final double radius;
 
+    /**
+     * The squared radius, calculated once for the intersection calculations.
+     */
+    protected final double radiusSquared;
+
     /**
      * Constructs a new RadialGeometry with the specified radius.
      *
@@ -18,5 +23,6 @@ abstract public class RadialGeometry extends Geometry {
      */
     public RadialGeometry(double _radius){
         this.radius = _radius;
+        this.radiusSquared = _radius * _radius;
     }
 }
\ No newline at end of file
@@ -50,6 +50,13 @@ public class Sphere extends RadialGeometry{
         return normal.normalize();
     }
 
+    @Override
+    public BoundingBox getBoundingBox() {
+        return new BoundingBox(
+                center.getX() - radius, center.getY() - radius, center.getZ() - radius,
+                center.getX() + radius, center.getY() + radius, center.getZ() + radius);
+    }
+
     /**
      * Calculates the intersections of a ray with the sphere.
      *
@@ -67,16 +74,17 @@ public class Sphere extends RadialGeometry{
         }
 
         // Case 2: General case for a ray not starting at the center
-        Vector u = center.subtract(p0);  // Vector from the ray origin to the center of the sphere
-        double tm = dir.dotProduct(u);  // Projection of the vector u onto the direction vector dir
-        double d = Util.alignZero(Math.sqrt(u.lengthSquared() - tm * tm));  // Calculate the perpendicular distance from the center to the ray
+        // Vector from the ray origin to the center of the sphere, by its coordinates (no vector is created)
+        double ux = center.getX() - p0.getX(), uy = center.getY() - p0.getY(), uz = center.getZ() - p0.getZ();
+        double tm = dir.getX() * ux + dir.getY() * uy + dir.getZ() * uz;  // Projection of the vector u onto the direction vector dir
+        double d2 = ux * ux + uy * uy + uz * uz - tm * tm;  // The squared perpendicular distance from the center to the ray
 
         // If the perpendicular distance is greater than or equal to the radius, there is no intersection
-        if (Util.alignZero(d - radius) >= 0)
+        if (Util.alignZero(d2 - radiusSquared) >= 0)
             return null;
 
         // Calculate th, the distance along the ray to the intersection points
-        double th = Math.sqrt(radius * radius - d * d);  // The distance from the ray origin to the intersection points
+        double th = Math.sqrt(radiusSquared - d2);  // The distance from the ray origin to the intersection points
 
         double t1 = Util.alignZero(tm - th);  // First intersection point
         double t2 = Util.alignZero(tm + th);  // Second intersection point
@@ -100,4 +108,30 @@ public class Sphere extends RadialGeometry{
         return null;  // No valid intersections
     }
 
+    @Override
+    public boolean calculateClosestHit(Ray ray, double tMin, Hit hit) {
+        Point p0 = ray.getHead();
+        double t;
+        if (center.equals(p0)) {
+            t = radius;
+        } else {
+            // same calculation as above, without creating the intersections
+            Vector dir = ray.getDirection();
+            double ux = center.getX() - p0.getX(), uy = center.getY() - p0.getY(), uz = center.getZ() - p0.getZ();
+            double tm = dir.getX() * ux + dir.getY() * uy + dir.getZ() * uz;
+            double d2 = ux * ux + uy * uy + uz * uz - tm * tm;
+            if (Util.alignZero(d2 - radiusSquared) >= 0)
+                return false;
+            double th = Math.sqrt(radiusSquared - d2);
+            t = Util.alignZero(tm - th);
+            // the nearer point is behind the ray's head or before the interval - take the farther one
+            if (t <= 0 || t <= tMin) t = Util.alignZero(tm + th);
+        }
+        if (t <= 0 || t <= tMin || t >= hit.t) return false;
+        hit.t = t;
+        hit.geometry = this;
+        hit.normal = null;
+        return true;
+    }
+
 }
@@ -3,15 +3,34 @@ import primitives.Point;
 import primitives.Vector;
 import primitives.Ray;
 import java.util.List;
+
 import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
 
 /**
  * A class that represents a triangle in three-dimensional space defined by three vertices.
  * The class inherits from the Polygon class.
  */
 public class Triangle extends Polygon {
+    /** The first vertex */
+    private final double ax, ay, az;
+    /** The edge from the first vertex to the second one */
+    private final double e1x, e1y, e1z;
+    /** The edge from the first vertex to the third one */
+    private final double e2x, e2y, e2z;
+
     public Triangle(Point point1, Point point2, Point point3) {
         super(point1, point2, point3);
+        // the data of the Möller-Trumbore test, calculated once
+        ax = point1.getX();
+        ay = point1.getY();
+        az = point1.getZ();
+        e1x = point2.getX() - ax;
+        e1y = point2.getY() - ay;
+        e1z = point2.getZ() - az;
+        e2x = point3.getX() - ax;
+        e2y = point3.getY() - ay;
+        e2z = point3.getZ() - az;
     }
 
     /**
@@ -24,43 +43,50 @@ public class Triangle extends Polygon {
     public Vector getNormal(Point point) {
         return plane.getNormal(point);
     }
-    /**
-     * Calculates the intersections of a ray with the triangle.
-     * The method first finds the intersection of the ray with the plane of the triangle,
-     * then checks if that intersection point lies within the triangle using the inside-out test.
-     *
-     * @param ray The ray to check for intersections with the triangle.
-     * @return A list of intersections, or null if there are no intersections.
-     */
     @Override
     public List<Intersection> calculateIntersectionsHelper(Ray ray) {
-        // Step 1: Find intersection with the plane of the triangle
-        List<Point> planeIntersections = plane.findIntersections(ray);
-        if (planeIntersections == null) return null;
-
-        Point p0 = ray.getHead();         // Starting point of the ray
-        Vector v = ray.getDirection();  // Direction of the ray
-
-        Point p = planeIntersections.getFirst(); // Intersection point with the plane
-
-        // Step 2: Check if the point is inside the triangle using inside-out test
-        Vector v1 = vertices.get(0).subtract(p0);
-        Vector v2 = vertices.get(1).subtract(p0);
-        Vector v3 = vertices.get(2).subtract(p0);
-
-        Vector n1 = v1.crossProduct(v2).normalize();
-        Vector n2 = v2.crossProduct(v3).normalize();
-        Vector n3 = v3.crossProduct(v1).normalize();
-
-        double s1 = alignZero(v.dotProduct(n1));
-        double s2 = alignZero(v.dotProduct(n2));
-        double s3 = alignZero(v.dotProduct(n3));
+        double t = distance(ray);
+        return t > 0 ? List.of(new Intersection(this, ray.getPoint(t))) : null;
+    }
 
-        // If all signs are the same (positive or negative), the point is inside
-        if ((s1 > 0 && s2 > 0 && s3 > 0) || (s1 < 0 && s2 < 0 && s3 < 0)) {
-            return List.of(new Intersection(this,p));
-        }
+    @Override
+    public boolean calculateClosestHit(Ray ray, double tMin, Hit hit) {
+        double t = distance(ray);
+        if (t <= 0 || t <= tMin || t >= hit.t) return false;
+        hit.t = t;
+        hit.geometry = this;
+        hit.normal = null;
+        return true;
+    }
 
-        return null; // The point is outside the triangle
+    /**
+     * Calculates the parametric distance along a ray to its intersection with the triangle
+     * (Möller-Trumbore test on the precomputed edges). The edges and the vertices are not hit.
+     * No objects are created.
+     *
+     * @param ray The ray to check.
+     * @return the distance, or 0 if the ray does not intersect the triangle
+     */
+    private double distance(Ray ray) {
+        Point head = ray.getHead();
+        Vector dir = ray.getDirection();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        // p = d x e2
+        double px = dy * e2z - dz * e2y;
+        double py = dz * e2x - dx * e2z;
+        double pz = dx * e2y - dy * e2x;
+        double det = e1x * px + e1y * py + e1z * pz;
+        if (isZero(det)) return 0; // the ray is parallel to the triangle
+        double inv = 1 / det;
+        double sx = head.getX() - ax, sy = head.getY() - ay, sz = head.getZ() - az;
+        double u = alignZero((sx * px + sy * py + sz * pz) * inv);
+        if (u <= 0 || u >= 1) return 0;
+        // q = s x e1
+        double qx = sy * e1z - sz * e1y;
+        double qy = sz * e1x - sx * e1z;
+        double qz = sx * e1y - sy * e1x;
+        double v = alignZero((dx * qx + dy * qy + dz * qz) * inv);
+        if (v <= 0 || alignZero(u + v - 1) >= 0) return 0;
+        return Math.max(0, alignZero((e2x * qx + e2y * qy + e2z * qz) * inv));
     }
-}
\ No newline at end of file
+}
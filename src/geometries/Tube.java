@@ -5,6 +5,7 @@ import primitives.Ray;
 import primitives.Util;
 import primitives.Vector;
 
+import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -58,10 +59,80 @@ public class Tube extends RadialGeometry {
         return point.subtract(projectedPoint).normalize();
     }
 
+    /**
+     * An infinite tube is unbounded
+     * @return {@link BoundingBox#INFINITE}
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        return BoundingBox.INFINITE;
+    }
+
+    /**
+     * Calculates the intersections of a ray with the tube.
+     *
+     * @param ray The ray to check for intersections with the tube.
+     * @return A list of the intersections, or null if there are no intersections.
+     */
     public List<Intersection> calculateIntersectionsHelper(Ray ray) {
-        // The tube does not have a specific intersection calculation method,
-        // so we return null to indicate no intersections.
-        return null;
+        double[] distances = distances(ray);
+        if (distances == null) return null;
+        List<Intersection> intersections = new LinkedList<>();
+        for (double t : distances) intersections.add(new Intersection(this, ray.getPoint(t)));
+        return intersections;
+    }
+
+    @Override
+    public boolean calculateClosestHit(Ray ray, double tMin, Hit hit) {
+        double[] distances = distances(ray);
+        if (distances == null) return false;
+        // the distances are ascending - the first one after the minimum is the nearest
+        for (double t : distances) {
+            if (t <= tMin) continue;
+            if (t >= hit.t) return false;
+            hit.t = t;
+            hit.geometry = this;
+            hit.normal = null;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Calculates the distances along a ray to its intersections with the surface.
+     * The ray is split into its components along the axis and orthogonal to it, and the
+     * orthogonal component must be at the distance of the radius from the axis:
+     * |Δ⊥ + t·d⊥|² = r², where Δ is the vector from the head of the axis to the head of the ray
+     * and d is the direction of the ray. A ray parallel to the axis or tangent to the tube
+     * does not intersect it.
+     *
+     * @param ray The ray.
+     * @return The distances of the intersections in ascending order, or null if there are none.
+     */
+    protected double[] distances(Ray ray) {
+        Point p = ray.getHead();
+        Vector d = ray.getDirection();
+        Point a = axis.getHead();
+        Vector v = axis.getDirection();
+        double dx = d.getX(), dy = d.getY(), dz = d.getZ();
+        double vx = v.getX(), vy = v.getY(), vz = v.getZ();
+        double qx = p.getX() - a.getX(), qy = p.getY() - a.getY(), qz = p.getZ() - a.getZ();
+
+        double dv = dx * vx + dy * vy + dz * vz;
+        double qv = qx * vx + qy * vy + qz * vz;
+        // the quadratic equation A·t² + 2B·t + C = 0 of the orthogonal components
+        double aa = dx * dx + dy * dy + dz * dz - dv * dv;
+        if (Util.isZero(aa)) return null; // the ray is parallel to the axis
+        double bb = dx * qx + dy * qy + dz * qz - dv * qv;
+        double cc = qx * qx + qy * qy + qz * qz - qv * qv - radiusSquared;
+        double discriminant = Util.alignZero(bb * bb - aa * cc);
+        if (discriminant <= 0) return null; // the ray misses the tube or is tangent to it
+
+        double root = Math.sqrt(discriminant);
+        double t1 = Util.alignZero((-bb - root) / aa);
+        double t2 = Util.alignZero((-bb + root) / aa);
+        if (t2 <= 0) return null;
+        return t1 > 0 ? new double[] { t1, t2 } : new double[] { t2 };
     }
 
 }
\ No newline at end of file
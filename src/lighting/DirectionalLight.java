@@ -5,10 +5,13 @@ import primitives.Vector;
 
 public class DirectionalLight extends Light implements LightSource {
     private final Vector direction;
+    // the direction towards the light is the same at every point, so the shadow rays share it
+    private final Vector reversedDirection;
 
     public DirectionalLight(Color intensity, Vector direction) {
         super(intensity);
         this.direction = direction.normalize();
+        this.reversedDirection = this.direction.scale(-1);
     }
     @Override
     public Color getIntensity(Point p) {
@@ -19,6 +22,10 @@ public class DirectionalLight extends Light implements LightSource {
         return direction;
     }
     @Override
+    public Vector getReversedL(Point p) {
+        return reversedDirection;
+    }
+    @Override
     public double getDistance(Point p) {
         // Directional light is considered to be infinitely far away
         return Double.POSITIVE_INFINITY;
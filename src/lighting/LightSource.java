@@ -1,11 +1,20 @@
 package lighting;
 import primitives.Point;
 import primitives.Color;
+import primitives.MutableColor;
 import primitives.Vector;
 
 public interface LightSource {
     Color getIntensity(Point p);
+    // getIntensity into scratch space of the renderer - the same color, without creating one
+    default MutableColor getIntensity(Point p, MutableColor intensity) {
+        return intensity.set(getIntensity(p));
+    }
     Vector getL(Point p);
+    // getReversedL returns the opposite of getL - the direction from the point towards the light, for shadow rays
+    default Vector getReversedL(Point p) {
+        return getL(p).scale(-1);
+    }
     // getDistance method returns the distance from the light source to a point in space
     double getDistance(Point p);
 }
@@ -1,6 +1,7 @@
 package lighting;
 import primitives.Point;
 import primitives.Color;
+import primitives.MutableColor;
 import primitives.Vector;
 
 public class PointLight extends Light implements LightSource{
@@ -21,6 +22,13 @@ public class PointLight extends Light implements LightSource{
         return intensity.scale(1.0 / attenuation);
     }
 
+    @Override
+    public MutableColor getIntensity(Point p, MutableColor intensity) {
+        double d = position.distance(p);
+        double attenuation = kC + kL * d + kQ * d * d;
+        return intensity.set(this.intensity).scale(1.0 / attenuation);
+    }
+
     @Override
     public Vector getL(Point p) {
         return p.subtract(position).normalize();
@@ -2,6 +2,7 @@ package lighting;
 
 import primitives.Point;
 import primitives.Color;
+import primitives.MutableColor;
 import primitives.Vector;
 
 public class SpotLight extends PointLight {
@@ -24,6 +25,11 @@ public class SpotLight extends PointLight {
         return super.getIntensity(p).scale(Math.pow(Math.max(0, direction.dotProduct(getL(p))), narrowBeam));
     }
 
+    @Override
+    public MutableColor getIntensity(Point p, MutableColor intensity) {
+        return super.getIntensity(p, intensity).scale(Math.pow(Math.max(0, direction.dotProduct(getL(p))), narrowBeam));
+    }
+
     public SpotLight setNarrowBeam(int narrowBeam) {
         this.narrowBeam = narrowBeam;
         return this;
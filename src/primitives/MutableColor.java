@@ -0,0 +1,141 @@
+package primitives;
+
+/**
+ * A mutable color for accumulating the light of the renderer.<br/>
+ * The operations change the color in place and return it, so that summing the
+ * contributions of many lights or samples creates no objects. An instance is scratch
+ * space of a single thread and must not be shared or kept; the immutable {@link Color}
+ * remains the type of the scene and of the results. The operations work exactly like
+ * those of {@link Color} - in particular, like {@link Color#add(Color...)} the components
+ * are rounded to whole numbers before they are added - so that the results are the same.
+ */
+public final class MutableColor {
+    /** The red component */
+    private double r;
+    /** The green component */
+    private double g;
+    /** The blue component */
+    private double b;
+
+    /**
+     * Sets the components to those of a color
+     *
+     * @param color the color
+     * @return this color
+     */
+    public MutableColor set(Color color) {
+        r = color.rgb.d1;
+        g = color.rgb.d2;
+        b = color.rgb.d3;
+        return this;
+    }
+
+    /**
+     * Adds a color to this color (by component)
+     *
+     * @param color the color to add
+     * @return this color
+     */
+    public MutableColor add(Color color) {
+        r = round(r) + round(color.rgb.d1);
+        g = round(g) + round(color.rgb.d2);
+        b = round(b) + round(color.rgb.d3);
+        return this;
+    }
+
+    /**
+     * Adds another mutable color to this color (by component)
+     *
+     * @param color the color to add
+     * @return this color
+     */
+    public MutableColor add(MutableColor color) {
+        r = round(r) + round(color.r);
+        g = round(g) + round(color.g);
+        b = round(b) + round(color.b);
+        return this;
+    }
+
+    /**
+     * Scales this color by a scalar triad per rgb
+     *
+     * @param k scale factor per rgb
+     * @return this color
+     */
+    public MutableColor scale(Double3 k) {
+        r *= k.d1;
+        g *= k.d2;
+        b *= k.d3;
+        return this;
+    }
+
+    /**
+     * Scales this color by a scalar
+     *
+     * @param k scale factor
+     * @return this color
+     */
+    public MutableColor scale(double k) {
+        r *= k;
+        g *= k;
+        b *= k;
+        return this;
+    }
+
+    /**
+     * Scales this color by the sum of two scaled triads per rgb - k1 * f1 + k2 * f2,
+     * such as the diffusive and the specular coefficients of a material with their factors
+     *
+     * @param k1 first triad
+     * @param f1 scale factor of the first triad
+     * @param k2 second triad
+     * @param f2 scale factor of the second triad
+     * @return this color
+     */
+    public MutableColor scale(Double3 k1, double f1, Double3 k2, double f2) {
+        r *= k1.d1 * f1 + k2.d1 * f2;
+        g *= k1.d2 * f1 + k2.d2 * f2;
+        b *= k1.d3 * f1 + k2.d3 * f2;
+        return this;
+    }
+
+    /**
+     * Scales this color by (1 / reduction factor)
+     *
+     * @param k reduction factor
+     * @return this color
+     * @throws IllegalArgumentException if the factor is lower than 1
+     */
+    public MutableColor reduce(int k) {
+        if (k < 1) throw new IllegalArgumentException("Can't scale a color by a by a number lower than 1");
+        r /= k;
+        g /= k;
+        b /= k;
+        return this;
+    }
+
+    /**
+     * Creates an immutable color with the components of this color
+     *
+     * @return the color
+     * @throws IllegalArgumentException if a component is negative
+     */
+    public Color toColor() {
+        return new Color(r, g, b);
+    }
+
+    /**
+     * Rounds a component the way {@link Color#add(Color...)} does
+     *
+     * @param component the component
+     * @return the rounded component
+     */
+    private static int round(double component) {
+        return (int) Math.round(component);
+    }
+
+    @Override
+    public String toString() {
+        return "rgb:(" + r + "," + g + "," + b + ")";
+    }
+}
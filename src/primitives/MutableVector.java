@@ -0,0 +1,70 @@
+package primitives;
+
+/**
+ * A mutable three-dimensional vector for intermediate results of the renderer.<br/>
+ * The operations change the vector in place and return it, so that a chain of them
+ * creates no objects. An instance is scratch space of a single thread and must not
+ * be shared or kept; the immutable {@link Vector} remains the type of the scene and
+ * of everything that leaves the calculation. The arithmetic is done in the same order
+ * as in {@link Vector}, so that the results are the same to the last bit.
+ */
+public final class MutableVector {
+    /** The x-component */
+    private double x;
+    /** The y-component */
+    private double y;
+    /** The z-component */
+    private double z;
+
+    /**
+     * Sets the components to those of a vector
+     *
+     * @param v the vector
+     * @return this vector
+     */
+    public MutableVector set(Vector v) {
+        x = v.x;
+        y = v.y;
+        z = v.z;
+        return this;
+    }
+
+    /**
+     * Adds a scaled vector to this vector
+     *
+     * @param v   the vector to add
+     * @param num the scale factor of the added vector
+     * @return this vector
+     */
+    public MutableVector add(Vector v, double num) {
+        x += v.x * num;
+        y += v.y * num;
+        z += v.z * num;
+        return this;
+    }
+
+    /**
+     * Computes the dot product of this vector and another vector.
+     *
+     * @param v the other vector
+     * @return the dot product
+     */
+    public double dotProduct(Vector v) {
+        return (x * v.x) + (y * v.y) + (z * v.z);
+    }
+
+    /**
+     * Creates an immutable vector with the components of this vector
+     *
+     * @return the vector
+     * @throws IllegalArgumentException if this is the zero vector
+     */
+    public Vector toVector() {
+        return new Vector(x, y, z);
+    }
+
+    @Override
+    public String toString() {
+        return "->(" + x + "," + y + "," + z + ")";
+    }
+}
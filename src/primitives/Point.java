@@ -1,8 +1,11 @@
 package primitives;
 
+import static primitives.Util.isZero;
+
 /**
  * A class that represents a point in three-dimensional space with x, y, and z coordinates.
- * The class use a Double3 object.
+ * The coordinates are kept in the point itself and not in a separate object, so that an
+ * operation creates a single object and the JIT may replace a short-lived one by its fields.
  */
 public class Point {
     /**
@@ -10,10 +13,12 @@ public class Point {
      */
     public static final Point ZERO = new Point(0, 0, 0);
 
-    /**
-     * The three-dimensional coordinates of the point.
-     */
-    protected final Double3 xyz;
+    /** The x-coordinate of the point. */
+    protected final double x;
+    /** The y-coordinate of the point. */
+    protected final double y;
+    /** The z-coordinate of the point. */
+    protected final double z;
 
     /**
      * Constructs a new Point with the specified x, y, and z coordinates.
@@ -23,7 +28,9 @@ public class Point {
      * @param z The z-coordinate of the point.
      */
     public Point(double x, double y, double z){
-        xyz = new Double3(x, y, z);
+        this.x = x;
+        this.y = y;
+        this.z = z;
     }
 
     /**
@@ -32,18 +39,48 @@ public class Point {
      * @param _new_obj The Double3 object containing the coordinates.
      */
     public Point(Double3 _new_obj){
-        this.xyz = _new_obj;
+        this(_new_obj.d1, _new_obj.d2, _new_obj.d3);
+    }
+
+    /**
+     * Returns the x-coordinate of the point.
+     *
+     * @return The x-coordinate of the point.
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * Returns the y-coordinate of the point.
+     *
+     * @return The y-coordinate of the point.
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * Returns the z-coordinate of the point.
+     *
+     * @return The z-coordinate of the point.
+     */
+    public double getZ() {
+        return z;
     }
 
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
-        return (obj instanceof Point other) && this.xyz.equals(other.xyz);
+        return (obj instanceof Point other)
+                && isZero(x - other.x)
+                && isZero(y - other.y)
+                && isZero(z - other.z);
     }
 
     @Override
     public String toString() {
-        return xyz.toString();
+        return "(" + x + "," + y + "," + z + ")";
     }
 
     /**
@@ -53,7 +90,7 @@ public class Point {
      * @return The vector representing the subtraction of points.
      */
     public Vector subtract(Point another_point){
-        return new Vector(this.xyz.subtract(another_point.xyz));
+        return new Vector(x - another_point.x, y - another_point.y, z - another_point.z);
     }
 
     /**
@@ -63,7 +100,7 @@ public class Point {
      * @return A new Point resulting from the addition of the vector.
      */
     public Point add(Vector another_vector){
-        return new Point(this.xyz.add(another_vector.xyz));
+        return new Point(x + another_vector.x, y + another_vector.y, z + another_vector.z);
     }
 
     /**
@@ -73,10 +110,10 @@ public class Point {
      * @return The squared distance between this Point and the other Point.
      */
     public double distanceSquared(Point another_point){
-        // double dx = this.xyz.d1 - another_point.xyz.d1;
-        return (this.xyz.d1 - another_point.xyz.d1) * (this.xyz.d1 - another_point.xyz.d1)
-                + (this.xyz.d2 - another_point.xyz.d2) * (this.xyz.d2 - another_point.xyz.d2)
-                + (this.xyz.d3 - another_point.xyz.d3) * (this.xyz.d3 - another_point.xyz.d3);
+        double dx = x - another_point.x;
+        double dy = y - another_point.y;
+        double dz = z - another_point.z;
+        return dx * dx + dy * dy + dz * dz;
     }
 
     /**
@@ -20,19 +20,53 @@ public class Ray {
      */
     private final Vector direction;
 
+    /**
+     * Reciprocals of the direction components (infinite for a zero component),
+     * so that slab tests against boxes multiply instead of dividing
+     */
+    private final double inverseX, inverseY, inverseZ;
+
+    /**
+     * Sign bits of the direction - bit 0 for x, bit 1 for y and bit 2 for z is set
+     * when the component is negative, that is when the ray enters a box through its maximal side
+     */
+    private final int signs;
+
     /**
      * Constructor for creating a new ray with a point and direction vector
      * @param p0 The starting point of the ray
-     * @param dir The direction vector of the ray (will be normalized)
+     * @param dir The direction vector of the ray (will be normalized, unless it already is)
      */
     public Ray(Point p0, Vector dir) {
         this.head = p0;
         this.direction = dir.normalize();
+        inverseX = 1 / direction.getX();
+        inverseY = 1 / direction.getY();
+        inverseZ = 1 / direction.getZ();
+        signs = signs(inverseX, inverseY, inverseZ);
     }
 
     public Ray(Point p,Vector direction, Vector normal){
         this.direction = direction;
-        head = p.add(normal.scale(direction.dotProduct(normal)<0?-DELTA:DELTA));
+        // the head is moved off the surface without creating the offset vector
+        double delta = direction.dotProduct(normal)<0?-DELTA:DELTA;
+        head = new Point(p.x + normal.x * delta, p.y + normal.y * delta, p.z + normal.z * delta);
+        inverseX = 1 / direction.getX();
+        inverseY = 1 / direction.getY();
+        inverseZ = 1 / direction.getZ();
+        signs = signs(inverseX, inverseY, inverseZ);
+    }
+
+    /**
+     * Calculates the sign bits of the direction from the reciprocals of its components
+     * (so that a negative zero counts as negative)
+     * @param x reciprocal of the x component
+     * @param y reciprocal of the y component
+     * @param z reciprocal of the z component
+     * @return the sign bits
+     */
+    private static int signs(double x, double y, double z) {
+        return (x < 0 ? 1 : 0) | (y < 0 ? 2 : 0) | (z < 0 ? 4 : 0);
     }
     @Override
     public boolean equals(Object obj) {
@@ -60,6 +94,38 @@ public class Ray {
         return direction;
     }
 
+    /**
+     * Getter for the reciprocal of the x component of the direction
+     * @return 1 / x, infinite if x is zero
+     */
+    public double getInverseX() {
+        return inverseX;
+    }
+
+    /**
+     * Getter for the reciprocal of the y component of the direction
+     * @return 1 / y, infinite if y is zero
+     */
+    public double getInverseY() {
+        return inverseY;
+    }
+
+    /**
+     * Getter for the reciprocal of the z component of the direction
+     * @return 1 / z, infinite if z is zero
+     */
+    public double getInverseZ() {
+        return inverseZ;
+    }
+
+    /**
+     * Getter for the sign bits of the direction
+     * @return bit 0 for x, bit 1 for y and bit 2 for z - set for a negative component
+     */
+    public int getSigns() {
+        return signs;
+    }
+
     /**
      * Returns a point on the ray at a given distance from the starting point
      * @param t The distance from the starting point
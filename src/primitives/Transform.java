@@ -0,0 +1,183 @@
+package primitives;
+
+import java.util.Arrays;
+
+/**
+ * Immutable affine transformation of the 3D space - a linear part (3x3 matrix)
+ * followed by a translation. The inverse transformation is kept along with it,
+ * so that rays may be moved into the local space of an object.
+ */
+public final class Transform {
+    /** The identity transformation */
+    public static final Transform IDENTITY = new Transform(
+            new double[] { 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0 },
+            new double[] { 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0 });
+
+    /** Row major 3x4 matrix: the 3x3 linear part and the translation column */
+    private final double[] m;
+    /** Row major 3x4 matrix of the inverse transformation */
+    private final double[] inv;
+
+    /**
+     * Constructs a transformation from its matrix and the matrix of its inverse
+     * @param m   the matrix
+     * @param inv the inverse matrix
+     */
+    private Transform(double[] m, double[] inv) {
+        this.m = m;
+        this.inv = inv;
+    }
+
+    /**
+     * Creates a translation
+     * @param v the translation vector
+     * @return the translation
+     */
+    public static Transform translation(Vector v) {
+        return new Transform(
+                new double[] { 1, 0, 0, v.getX(), 0, 1, 0, v.getY(), 0, 0, 1, v.getZ() },
+                new double[] { 1, 0, 0, -v.getX(), 0, 1, 0, -v.getY(), 0, 0, 1, -v.getZ() });
+    }
+
+    /**
+     * Creates a scaling around the origin
+     * @param sx scale factor on the x axis
+     * @param sy scale factor on the y axis
+     * @param sz scale factor on the z axis
+     * @return the scaling
+     * @throws IllegalArgumentException if any of the factors is zero
+     */
+    public static Transform scaling(double sx, double sy, double sz) {
+        if (Util.isZero(sx) || Util.isZero(sy) || Util.isZero(sz))
+            throw new IllegalArgumentException("Scale factor must not be zero");
+        return new Transform(
+                new double[] { sx, 0, 0, 0, 0, sy, 0, 0, 0, 0, sz, 0 },
+                new double[] { 1 / sx, 0, 0, 0, 0, 1 / sy, 0, 0, 0, 0, 1 / sz, 0 });
+    }
+
+    /**
+     * Creates a uniform scaling around the origin
+     * @param s the scale factor
+     * @return the scaling
+     * @throws IllegalArgumentException if the factor is zero
+     */
+    public static Transform scaling(double s) {
+        return scaling(s, s, s);
+    }
+
+    /**
+     * Creates a rotation around an axis through the origin (Rodrigues' formula)
+     * @param axis  the rotation axis
+     * @param angle the rotation angle in degrees, counter-clockwise when looking against the axis
+     * @return the rotation
+     */
+    public static Transform rotation(Vector axis, double angle) {
+        Vector u = axis.normalize();
+        double x = u.getX(), y = u.getY(), z = u.getZ();
+        double rad = Math.toRadians(angle);
+        double c = Math.cos(rad), s = Math.sin(rad), t = 1 - c;
+        double[] r = {
+                t * x * x + c, t * x * y - s * z, t * x * z + s * y, 0,
+                t * x * y + s * z, t * y * y + c, t * y * z - s * x, 0,
+                t * x * z - s * y, t * y * z + s * x, t * z * z + c, 0 };
+        // the inverse of a rotation is its transpose
+        double[] rt = { r[0], r[4], r[8], 0, r[1], r[5], r[9], 0, r[2], r[6], r[10], 0 };
+        return new Transform(r, rt);
+    }
+
+    /**
+     * Composes this transformation with another one that is applied after it
+     * @param next the transformation to apply after this one
+     * @return the composed transformation
+     */
+    public Transform then(Transform next) {
+        return new Transform(multiply(next.m, m), multiply(inv, next.inv));
+    }
+
+    /**
+     * Returns the inverse transformation
+     * @return the inverse
+     */
+    public Transform inverse() {
+        return new Transform(inv, m);
+    }
+
+    /**
+     * Checks whether this is the identity transformation
+     * @return true for the identity
+     */
+    public boolean isIdentity() {
+        return this == IDENTITY || Arrays.equals(m, IDENTITY.m);
+    }
+
+    /**
+     * Transforms a point
+     * @param p the point
+     * @return the transformed point
+     */
+    public Point applyToPoint(Point p) {
+        double x = p.x, y = p.y, z = p.z;
+        return new Point(
+                m[0] * x + m[1] * y + m[2] * z + m[3],
+                m[4] * x + m[5] * y + m[6] * z + m[7],
+                m[8] * x + m[9] * y + m[10] * z + m[11]);
+    }
+
+    /**
+     * Transforms a direction vector (the translation does not apply)
+     * @param v the vector
+     * @return the transformed vector
+     */
+    public Vector applyToVector(Vector v) {
+        double x = v.x, y = v.y, z = v.z;
+        return new Vector(
+                m[0] * x + m[1] * y + m[2] * z,
+                m[4] * x + m[5] * y + m[6] * z,
+                m[8] * x + m[9] * y + m[10] * z);
+    }
+
+    /**
+     * Transforms a surface normal - by the transposed inverse of the linear part, so that
+     * it stays orthogonal to the transformed surface. The result is normalized.
+     * @param n the normal
+     * @return the transformed unit normal
+     */
+    public Vector applyToNormal(Vector n) {
+        double x = n.x, y = n.y, z = n.z;
+        return new Vector(
+                inv[0] * x + inv[4] * y + inv[8] * z,
+                inv[1] * x + inv[5] * y + inv[9] * z,
+                inv[2] * x + inv[6] * y + inv[10] * z).normalize();
+    }
+
+    /**
+     * Transforms a ray - its head as a point and its direction as a vector
+     * @param ray the ray
+     * @return the transformed ray (with a normalized direction)
+     */
+    public Ray applyToRay(Ray ray) {
+        return new Ray(applyToPoint(ray.getHead()), applyToVector(ray.getDirection()));
+    }
+
+    /**
+     * Multiplies two affine 3x4 matrices as 4x4 matrices with a last row of (0,0,0,1)
+     * @param a left matrix
+     * @param b right matrix
+     * @return a * b
+     */
+    private static double[] multiply(double[] a, double[] b) {
+        double[] r = new double[12];
+        for (int row = 0; row < 3; ++row) {
+            int i = row * 4;
+            for (int col = 0; col < 4; ++col)
+                r[i + col] = a[i] * b[col] + a[i + 1] * b[4 + col] + a[i + 2] * b[8 + col];
+            r[i + 3] += a[i + 3];
+        }
+        return r;
+    }
+
+    @Override
+    public String toString() {
+        return "Transform" + Arrays.toString(m);
+    }
+}
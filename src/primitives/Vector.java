@@ -1,5 +1,7 @@
 package primitives;
 
+import static primitives.Util.isZero;
+
 /**
  * A class that represents a three-dimensional vector with x, y, and z components.
  * The class inherits from the Point class.
@@ -9,6 +11,12 @@ public class Vector extends Point {
     public static Vector AXIS_Y = new Vector (0,1,0);
     public static Vector AXIS_Z = new Vector (0,0,1);
 
+    /**
+     * Whether the vector is known to be of unit length - it was created by normalization,
+     * so that normalizing it again may be skipped.
+     */
+    private final boolean unit;
+
     /**
      * Constructs a new Vector with the specified x, y, and z components.
      *
@@ -19,9 +27,39 @@ public class Vector extends Point {
      */
     public Vector(double x, double y, double z){
         super(x, y, z);
-        if(this.xyz.equals(Double3.ZERO)) {
+        if(isZero(x) && isZero(y) && isZero(z)) {
             throw new IllegalArgumentException("the zero vector not ok");
         }
+        unit = false;
+    }
+
+    /**
+     * Constructs a new Vector from components that are already known to be valid,
+     * without checking them - they are checked by assertions only.
+     *
+     * @param x The x-component of the vector.
+     * @param y The y-component of the vector.
+     * @param z The z-component of the vector.
+     * @param unit whether the components are known to be those of a unit vector
+     */
+    private Vector(double x, double y, double z, boolean unit){
+        super(x, y, z);
+        assert !(isZero(x) && isZero(y) && isZero(z)) : "the zero vector not ok";
+        assert !unit || isZero(x * x + y * y + z * z - 1) : "the vector is not of unit length";
+        this.unit = unit;
+    }
+
+    /**
+     * Creates a unit vector from components of known-normalized math, skipping
+     * the zero vector check and the normalization.
+     *
+     * @param x The x-component of the vector.
+     * @param y The y-component of the vector.
+     * @param z The z-component of the vector.
+     * @return the unit vector
+     */
+    static Vector unit(double x, double y, double z){
+        return new Vector(x, y, z, true);
     }
 
     /**
@@ -31,10 +69,7 @@ public class Vector extends Point {
      * @throws IllegalArgumentException If the vector is the zero vector.
      */
     public Vector(Double3 new_xyz){
-        super(new_xyz.d1, new_xyz.d2, new_xyz.d3);
-        if(new_xyz.equals(Double3.ZERO)){
-            throw new IllegalArgumentException("The zero vector is Illegal");
-        }
+        this(new_xyz.d1, new_xyz.d2, new_xyz.d3);
     }
 
     @Override
@@ -73,7 +108,7 @@ public class Vector extends Point {
      * @return A new vector representing the sum of this vector and the given vector.
      */
     public Vector add(Vector another_vector) {
-        return new Vector(this.xyz.add(another_vector.xyz));
+        return new Vector(x + another_vector.x, y + another_vector.y, z + another_vector.z);
     }
 
     /**
@@ -83,7 +118,7 @@ public class Vector extends Point {
      * @return A new vector representing the scaled vector.
      */
     public Vector scale(double num){
-        return new Vector(this.xyz.scale(num));
+        return new Vector(x * num, y * num, z * num);
     }
 
     /**
@@ -91,8 +126,8 @@ public class Vector extends Point {
      * @return A vector that is orthogonal to this vector.
      */
     public Vector getOrthogonal(){
-        if(xyz.d2()!=0 ||xyz.d3()!=0){
-            return new Vector(0, xyz.d3(), -xyz.d2());
+        if(!isZero(y) || !isZero(z)){
+            return new Vector(0, z, -y);
         }
         return AXIS_Y;
     }
@@ -103,7 +138,7 @@ public class Vector extends Point {
      * @return The dot product of this vector and the other vector.
      */
     public double dotProduct(Vector another_vector){
-        return (this.xyz.d1 * another_vector.xyz.d1) + (this.xyz.d2 * another_vector.xyz.d2) + (this.xyz.d3 * another_vector.xyz.d3);
+        return (x * another_vector.x) + (y * another_vector.y) + (z * another_vector.z);
     }
 
     /**
@@ -113,21 +148,20 @@ public class Vector extends Point {
      * @return A new vector representing the cross product of this vector and the other vector.
      */
     public Vector crossProduct(Vector another_vector){
-        double THIS_x = this.xyz.d1;
-        double THIS_y = this.xyz.d2;
-        double THIS_z = this.xyz.d3;
-        double V_x = another_vector.xyz.d1;
-        double V_y = another_vector.xyz.d2;
-        double V_z = another_vector.xyz.d3;
-        return new Vector((THIS_y * V_z) - (THIS_z * V_y), (THIS_z * V_x) - (THIS_x * V_z), (THIS_x * V_y) - (THIS_y * V_x));
+        double V_x = another_vector.x;
+        double V_y = another_vector.y;
+        double V_z = another_vector.z;
+        return new Vector((y * V_z) - (z * V_y), (z * V_x) - (x * V_z), (x * V_y) - (y * V_x));
     }
 
     /**
      * Normalizes this vector to have unit length.
      *
-     * @return A new vector representing the normalized vector.
+     * @return A new vector representing the normalized vector, or this vector if it is already normalized.
      */
     public Vector normalize(){
-        return new Vector(this.xyz.reduce(this.length()));
+        if(unit) return this;
+        double length = length();
+        return unit(x / length, y / length, z / length);
     }
 }
\ No newline at end of file
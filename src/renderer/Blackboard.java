@@ -15,6 +15,12 @@ public class Blackboard {
     int sqrtNumRays;
     Point center;
     //Vector normal;
+    /** The sampler of the jitter of the rays in their cells - null for a regular grid */
+    Sampler sampler = null;
+    /** Column of the pixel that keys the samples */
+    int col;
+    /** Row of the pixel that keys the samples */
+    int row;
 
     /**
      * Constructor for creating a blackboard with a specified height, width, center point, and normal vector.
@@ -48,6 +54,20 @@ public class Blackboard {
         this.y = y.normalize();
         this.sqrtNumRays = (int) Math.sqrt(numRays);
     }
+    /**
+     * Sets a sampler that jitters each ray inside its cell of the grid
+     *
+     * @param sampler the sampler
+     * @param col     column of the pixel that keys the samples
+     * @param row     row of the pixel that keys the samples
+     * @return this blackboard
+     */
+    public Blackboard setSampler(Sampler sampler, int col, int row) {
+        this.sampler = sampler;
+        this.col = col;
+        this.row = row;
+        return this;
+    }
     /**
      * Generates a list of rays originating from a specified head point, directed towards points on the blackboard.
      *
@@ -68,7 +88,16 @@ public class Blackboard {
 
                 if (!Util.isZero(xJ)) p = p.add(x.scale(xJ));
                 if (!Util.isZero(yI)) p = p.add(y.scale(yI));
-                rays.add(new Ray(head,p.subtract(head)));
+                Point target = p;
+                if (sampler != null) {
+                    // one sample in the cell, indexed by the cell
+                    long index = (long) i * sqrtNumRays + j;
+                    double jx = (sampler.get(col, row, index, 0) - 0.5) * width / sqrtNumRays;
+                    double jy = (sampler.get(col, row, index, 1) - 0.5) * height / sqrtNumRays;
+                    if (!Util.isZero(jx)) target = target.add(x.scale(jx));
+                    if (!Util.isZero(jy)) target = target.add(y.scale(jy));
+                }
+                rays.add(new Ray(head,target.subtract(head)));
             }
         }
         return rays;
@@ -7,7 +7,14 @@ import primitives.Ray;
 import scene.Scene;
 
 import java.util.LinkedList;
+import java.util.List;
 import java.util.MissingResourceException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.IntStream;
 
 /** * The Camera class represents a camera in a 3D scene.
@@ -29,9 +36,26 @@ public class Camera implements Cloneable {
      */
     private Vector vTo = new Vector(0, 0, -1);     // Forward direction
     private static final int SPARE_THREADS = 2;
+    /** The multithreading mode of rendering by a virtual thread per tile */
+    public static final int VIRTUAL_THREADS = -3;
+    /** The multithreading mode of rendering by recursive subdivision of the image on a fork-join pool */
+    public static final int FORK_JOIN = -4;
     private double printInterval = 0;
     private PixelManager pixelManager;
+    /** The listeners of the progress of rendering */
+    private List<ProgressListener> progressListeners = List.of();
     private int threadsCount = 0;
+    /** Side of the square tiles of pixels that are dealt to the render threads */
+    private int tileSize = 16;
+    /** Whether the tiles are cut and ordered by their cost, predicted by a pre-pass */
+    private boolean costPrediction = false;
+    /**
+     * The sampler of the jitter of the rays inside a pixel - null for the default:
+     * random jitter of adaptive super sampling and a regular anti-aliasing grid
+     */
+    private Sampler sampler = null;
+    /** Resolution of the grid of the offsets that index the jitter samples of a pixel */
+    private static final int SUBPIXELS = 1 << 10;
     /**
      * The up direction vector (vUp) is the direction that is considered "up" for the camera.
      * The right direction vector (vRight) is perpendicular to both vTo and vUp.
@@ -79,13 +103,14 @@ public class Camera implements Cloneable {
      * @param maxX   maximum X coordinate within the pixel
      * @param minY   minimum Y coordinate within the pixel
      * @param maxY   maximum Y coordinate within the pixel
+     * @param rays   counter of the traced rays, which is also the index of the next sample of the pixel
      * @return the averaged color of the region
      */
     private Color adaptiveSuperSampling(int i, int j, int depth,
-                                        double minX, double maxX, double minY, double maxY) {
+                                        double minX, double maxX, double minY, double maxY, int[] rays) {
 
         // Send ray to top-left corner
-        Ray rayTL = constructRay(nX, nY, i, j, minX, minY);
+        Ray rayTL = constructRay(nX, nY, i, j, minX, minY, rays[0]++);
         Color cTL = rayTracer.traceRay(rayTL);
         // Base case: maximum recursion depth reached – return top-left corner color
         if (depth >= adaptive_super_sampling) {
@@ -94,24 +119,24 @@ public class Camera implements Cloneable {
 
 
         // Check top-right only if needed
-        Ray rayTR = constructRay(nX, nY, i, j, maxX, minY);
+        Ray rayTR = constructRay(nX, nY, i, j, maxX, minY, rays[0]++);
         Color cTR = rayTracer.traceRay(rayTR);
         if (!cTR.equals(cTL)) {
-            return recurseAll(i, j, depth, minX, maxX, minY, maxY);
+            return recurseAll(i, j, depth, minX, maxX, minY, maxY, rays);
         }
 
         // Check bottom-left only if still equal
-        Ray rayBL = constructRay(nX, nY, i, j, minX, maxY);
+        Ray rayBL = constructRay(nX, nY, i, j, minX, maxY, rays[0]++);
         Color cBL = rayTracer.traceRay(rayBL);
         if (!cBL.equals(cTL)) {
-            return recurseAll(i, j, depth, minX, maxX, minY, maxY);
+            return recurseAll(i, j, depth, minX, maxX, minY, maxY, rays);
         }
 
         // Check bottom-right only if still equal
-        Ray rayBR = constructRay(nX, nY, i, j, maxX, maxY);
+        Ray rayBR = constructRay(nX, nY, i, j, maxX, maxY, rays[0]++);
         Color cBR = rayTracer.traceRay(rayBR);
         if (!cBR.equals(cTL)) {
-            return recurseAll(i, j, depth, minX, maxX, minY, maxY);
+            return recurseAll(i, j, depth, minX, maxX, minY, maxY, rays);
         }
 
         // All corners are equal
@@ -128,30 +153,47 @@ public class Camera implements Cloneable {
      * @param maxX   maximum X coordinate of the region
      * @param minY   minimum Y coordinate of the region
      * @param maxY   maximum Y coordinate of the region
+     * @param rays   counter of the traced rays
      * @return averaged color from the 4 subregions
      */
     private Color recurseAll(int i, int j, int depth,
-                             double minX, double maxX, double minY, double maxY) {
+                             double minX, double maxX, double minY, double maxY, int[] rays) {
         double midX = (minX + maxX) / 2;
         double midY = (minY + maxY) / 2;
 
-        Color r1 = adaptiveSuperSampling(i, j, depth + 1, minX, midX, minY, midY); // top-left
-        Color r2 = adaptiveSuperSampling(i, j, depth + 1, midX, maxX, minY, midY); // top-right
-        Color r3 = adaptiveSuperSampling(i, j, depth + 1, minX, midX, midY, maxY); // bottom-left
-        Color r4 = adaptiveSuperSampling(i, j, depth + 1, midX, maxX, midY, maxY); // bottom-right
+        Color r1 = adaptiveSuperSampling(i, j, depth + 1, minX, midX, minY, midY, rays); // top-left
+        Color r2 = adaptiveSuperSampling(i, j, depth + 1, midX, maxX, minY, midY, rays); // top-right
+        Color r3 = adaptiveSuperSampling(i, j, depth + 1, minX, midX, midY, maxY, rays); // bottom-left
+        Color r4 = adaptiveSuperSampling(i, j, depth + 1, midX, maxX, midY, maxY, rays); // bottom-right
 
         return r1.add(r2, r3, r4).reduce(4);
     }
+    /**
+     * Renders a pixel and reports it to the progress
+     *
+     * @param x pixel column index
+     * @param y pixel row index
+     */
     public void castRay(int x, int y){
+        pixelManager.pixelDone(castPixel(x, y));
+    }
+    /**
+     * Renders a pixel
+     *
+     * @param x pixel column index
+     * @param y pixel row index
+     * @return the amount of rays that were traced from the camera for the pixel
+     */
+    private int castPixel(int x, int y){
         if(adaptive_super_sampling!=0){
-            imageWriter.writePixel(x, y, adaptiveSuperSampling(x, y, 0, -0.5, 0.5, -0.5, 0.5));
-            pixelManager.pixelDone();
+            int[] rays = { 0 };
+            imageWriter.writePixel(x, y, adaptiveSuperSampling(x, y, 0, -0.5, 0.5, -0.5, 0.5, rays));
+            return rays[0];
         }
         else if(antiAliasingRaysNum<2) {
             // If anti-aliasing is not enabled, trace a single ray for the pixel
             imageWriter.writePixel(x, y, rayTracer.traceRay(constructRay(nX, nY, x, y)));
-            pixelManager.pixelDone();
-            return;
+            return 1;
         }
         else {
             Point p = p0.add(vTo.scale(distance)); // Start point of the ray
@@ -162,8 +204,11 @@ public class Camera implements Cloneable {
             if (!Util.isZero(xJ)) p = p.add(vRight.scale(xJ));
             if (!Util.isZero(yI)) p = p.add(vUp.scale(yI));
 
-            imageWriter.writePixel(x, y, rayTracer.traceBeam(new Blackboard(height/(double)nY,width/(double)nX,p,vUp,vRight,antiAliasingRaysNum).getRays(p0)));
-            pixelManager.pixelDone();
+            Blackboard blackboard = new Blackboard(height/(double)nY,width/(double)nX,p,vUp,vRight,antiAliasingRaysNum);
+            if (sampler != null) blackboard.setSampler(sampler, x, y);
+            List<Ray> rays = blackboard.getRays(p0);
+            imageWriter.writePixel(x, y, rayTracer.traceBeam(rays));
+            return rays.size();
         }
     }
     /**
@@ -218,12 +263,15 @@ public class Camera implements Cloneable {
      */
     private Camera renderImageRawThreads() {
         var threads = new LinkedList<Thread>();
-        while (threadsCount-- > 0)
+        TileScheduler scheduler = new TileScheduler(nY, nX, tileSize, threadsCount, pixelCost());
+        for (int i = 0; i < threadsCount; ++i) {
+            int worker = i;
             threads.add(new Thread(() -> {
-                PixelManager.Pixel pixel;
-                while ((pixel = pixelManager.nextPixel()) != null)
-                    castRay(pixel.col(), pixel.row());
+                int tile;
+                while ((tile = scheduler.nextTile(worker)) >= 0)
+                    renderTile(scheduler, tile);
             }));
+        }
         for (var thread : threads) thread.start();
         try {
             for (var thread : threads) thread.join();
@@ -231,9 +279,151 @@ public class Camera implements Cloneable {
         return this;
     }
 
+    /**
+     * Render image using a virtual thread per tile. The virtual threads run on the
+     * carrier threads of the JVM, and at most as many tiles as the spare processors
+     * are rendered at once. The rendering is structured: it ends only when all the
+     * tiles have ended, and if a tile fails, the tiles that have not started yet are
+     * skipped and the failure is thrown from here. The pre-pass of the cost of the tiles,
+     * if any, runs on as many virtual threads as tiles are rendered at once.
+     * @return the camera object itself
+     */
+    private Camera renderImageVirtualThreads() {
+        TileScheduler scheduler = new TileScheduler(nY, nX, tileSize, 1, pixelCost());
+        int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - SPARE_THREADS);
+        Semaphore running = new Semaphore(parallelism);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        try (var executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("render-", 0).factory())) {
+            if (costPrediction)
+                for (int i = 0; i < parallelism; ++i)
+                    executor.execute(() -> {
+                        try {
+                            scheduler.predict();
+                        } catch (Throwable e) {
+                            failure.compareAndSet(null, e);
+                        }
+                    });
+            // the calling thread joins the pre-pass - the amount of tiles is known when it has ended
+            for (int i = 0; i < scheduler.tiles(); ++i) {
+                int tile = i;
+                executor.execute(() -> {
+                    running.acquireUninterruptibly();
+                    try {
+                        if (failure.get() == null) renderTile(scheduler, tile);
+                    } catch (Throwable e) {
+                        if (failure.compareAndSet(null, e)) executor.shutdownNow();
+                    } finally {
+                        running.release();
+                    }
+                });
+            }
+        } catch (RejectedExecutionException e) {
+            // a tile has failed and the rest of the tiles have been cancelled
+        }
+        Throwable e = failure.get();
+        if (e instanceof RuntimeException runtime) throw runtime;
+        if (e instanceof Error error) throw error;
+        if (e != null) throw new IllegalStateException("Rendering has failed", e);
+        return this;
+    }
+
+    /**
+     * Render image by recursive subdivision of the image rectangle, on a dedicated
+     * fork-join pool of a thread per spare processor
+     * @return the camera object itself
+     */
+    private Camera renderImageForkJoin() {
+        try (ForkJoinPool pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - SPARE_THREADS))) {
+            pool.invoke(new RenderBlock(0, 0, nX, nY));
+        }
+        return this;
+    }
+
+    /**
+     * A rectangular block of pixels rendered as a fork-join task. A block larger
+     * than a tile is split in half across its longer side, and the halves are forked,
+     * so that the idle threads of the pool steal the halves of the expensive regions
+     * for as long as they are split.
+     */
+    @SuppressWarnings("serial") // fork-join tasks are never serialized
+    private class RenderBlock extends RecursiveAction {
+        /** First column of the block */
+        private final int col0;
+        /** First row of the block */
+        private final int row0;
+        /** Amount of columns of the block */
+        private final int cols;
+        /** Amount of rows of the block */
+        private final int rows;
+
+        /**
+         * Constructs a block of pixels
+         * @param col0 first column
+         * @param row0 first row
+         * @param cols amount of columns
+         * @param rows amount of rows
+         */
+        RenderBlock(int col0, int row0, int cols, int rows) {
+            this.col0 = col0;
+            this.row0 = row0;
+            this.cols = cols;
+            this.rows = rows;
+        }
+
+        @Override
+        protected void compute() {
+            if (cols > tileSize && cols >= rows)
+                invokeAll(new RenderBlock(col0, row0, cols / 2, rows),
+                        new RenderBlock(col0 + cols / 2, row0, cols - cols / 2, rows));
+            else if (rows > tileSize)
+                invokeAll(new RenderBlock(col0, row0, cols, rows / 2),
+                        new RenderBlock(col0, row0 + rows / 2, cols, rows - rows / 2));
+            else {
+                long rays = 0;
+                for (int row = row0; row < row0 + rows; ++row)
+                    for (int col = col0; col < col0 + cols; ++col)
+                        rays += castPixel(col, row);
+                pixelManager.pixelsDone(cols * rows, rays);
+            }
+        }
+    }
+
+    /**
+     * Returns the predictor of the cost of the pixels for the pre-pass of the tiles -
+     * the time of tracing a single ray through the center of the pixel
+     * @return the predictor, or null if the cost is not predicted
+     */
+    private TileScheduler.PixelCost pixelCost() {
+        if (!costPrediction) return null;
+        return (col, row) -> {
+            long start = System.nanoTime();
+            rayTracer.traceRay(constructRay(nX, nY, col, row));
+            return System.nanoTime() - start;
+        };
+    }
+
+    /**
+     * Render the pixels of a tile, and update the progress once for the whole tile
+     * @param scheduler the scheduler of the tiles
+     * @param tile      the tile number
+     */
+    private void renderTile(TileScheduler scheduler, int tile) {
+        long[] done = { 0, 0 }; // pixels and rays of the tile
+        scheduler.forEachPixel(tile, (col, row) -> {
+            ++done[0];
+            done[1] += castPixel(col, row);
+        });
+        pixelManager.pixelsDone((int) done[0], done[1]);
+    }
+
 
     /**
      * Constructs a ray from the camera through a specific pixel on the view plane.
+     * The ray is jittered randomly by up to half a pixel - the jitter is a sample of the
+     * sampler of the camera, indexed by the offsets, so that the same arguments always
+     * give the same ray. The indices of different offsets are far apart, so a sequence of
+     * rays through a pixel should rather be numbered by
+     * {@link #constructRay(int, int, int, int, double, double, long)}.
      *
      * @param nX number of columns (horizontal resolution)
      * @param nY number of rows (vertical resolution)
@@ -244,13 +434,33 @@ public class Camera implements Cloneable {
      * @return a {@link Ray} from the camera through the specified pixel
      */
     public Ray constructRay(int nX, int nY, int j, int i, double xOff, double yOff){
+        long index = Math.round((xOff + 0.5) * SUBPIXELS) * (SUBPIXELS + 1) + Math.round((yOff + 0.5) * SUBPIXELS);
+        return constructRay(nX, nY, j, i, xOff, yOff, index);
+    }
+
+    /**
+     * Constructs a ray from the camera through a specific pixel on the view plane, jittered
+     * by the sample of the given index. Samples numbered consecutively in each pixel keep the
+     * low discrepancy of a sampler such as {@link Sampler#halton(long)}.
+     *
+     * @param nX    number of columns (horizontal resolution)
+     * @param nY    number of rows (vertical resolution)
+     * @param j     pixel column index (0-based from left)
+     * @param i     pixel row index (0-based from top)
+     * @param xOff  offset in the X direction for anti-aliasing and adaptive super sampling
+     * @param yOff  offset in the Y direction for anti-aliasing and adaptive super sampling
+     * @param index index of the jitter sample among the samples of the pixel
+     * @return a {@link Ray} from the camera through the specified pixel
+     */
+    public Ray constructRay(int nX, int nY, int j, int i, double xOff, double yOff, long index){
         Point pij = p0.add(vTo.scale(distance));
         double rY = height / nY;
         double rX = width / nX;
         double xJ = (j + xOff - (nX - 1) / 2.0) * rX;
         double yI = -(i + yOff - (nY - 1) / 2.0) * rY;
-        xJ = xJ + Util.random(-0.5, 0.5) * rX;
-        yI = yI + Util.random(-0.5, 0.5) * rY;
+        Sampler jitter = sampler != null ? sampler : Sampler.RANDOM;
+        xJ = xJ + (jitter.get(j, i, index, 0) - 0.5) * rX;
+        yI = yI + (jitter.get(j, i, index, 1) - 0.5) * rY;
         if (!Util.isZero(xJ))
             pij = pij.add(vRight.scale(xJ));
         if (!Util.isZero(yI))
@@ -285,12 +495,21 @@ public class Camera implements Cloneable {
 //            }
 //        }
 //        return this;
-        pixelManager = new PixelManager(nY, nX, printInterval);
-        return switch (threadsCount) {
-            case 0 -> renderImageNoThreads();
-            case -1 -> renderImageStream();
-            default -> renderImageRawThreads();
-        };
+        rayTracer.prepare();
+        List<ProgressListener> listeners = new LinkedList<>(progressListeners);
+        if (printInterval > 0) listeners.add(ProgressListener.console(printInterval));
+        pixelManager = new PixelManager(nY, nX, listeners);
+        try {
+            return switch (threadsCount) {
+                case 0 -> renderImageNoThreads();
+                case -1 -> renderImageStream();
+                case VIRTUAL_THREADS -> renderImageVirtualThreads();
+                case FORK_JOIN -> renderImageForkJoin();
+                default -> renderImageRawThreads();
+            };
+        } finally {
+            pixelManager.finish();
+        }
     }
     /**
      * Prints a grid on the image.
@@ -337,14 +556,19 @@ public class Camera implements Cloneable {
          * If threads is -2, it uses the number of available processors minus 2 as the thread count.
          * If threads is -1, it uses parallel streaming.
          * If threads is 0, it uses single-threaded rendering.
+         * If threads is {@link Camera#VIRTUAL_THREADS} (-3), it renders each tile in a virtual
+         * thread, on the carrier threads of the JVM - at most as many tiles at once as the
+         * spare processors.
+         * If threads is {@link Camera#FORK_JOIN} (-4), it splits the image recursively down
+         * to the tiles, on a dedicated fork-join pool of a thread per spare processor.
          *
          * @param threads the number of threads to use
          * @return this builder
-         * @throws IllegalArgumentException if threads is less than -2
+         * @throws IllegalArgumentException if threads is less than -4
          */
         public Builder setMultithreading(int threads){
-            if (threads<=-3){
-                throw new IllegalArgumentException("Multithreading parameter must be -2 or higher");
+            if (threads < FORK_JOIN){
+                throw new IllegalArgumentException("Multithreading parameter must be -4 or higher");
             }
             if (threads == -2) {
                 int cores = Runtime.getRuntime().availableProcessors() - SPARE_THREADS;
@@ -355,10 +579,44 @@ public class Camera implements Cloneable {
             return this;
         }
         /**
-         * Sets the debug print interval for the camera.
+         * Sets the side of the square tiles of pixels that are dealt to the render threads
+         * (when rendering with raw threads or virtual threads) - in the fork-join mode, the
+         * largest block that is not split further. Small tiles balance the threads better,
+         * large tiles keep each thread longer in the same part of the scene.
+         *
+         * @param tileSize the side of a tile in pixels
+         * @return this builder
+         * @throws IllegalArgumentException if the tile size is not positive
+         */
+        public Builder setTileSize(int tileSize) {
+            if (tileSize <= 0) {
+                throw new IllegalArgumentException("Tile size must be positive");
+            }
+            camera.tileSize = tileSize;
+            return this;
+        }
+        /**
+         * Sets whether to predict the cost of the tiles (when rendering with raw threads or
+         * virtual threads) by a pre-pass at 1/8 resolution, that traces a ray through every
+         * 8th pixel in both directions. The render threads share the pre-pass before they
+         * start rendering. The tiles that are predicted to be expensive are cut into smaller
+         * tiles, and the tiles are rendered from the most expensive down, so that the threads
+         * do not wait for a last expensive tile at the end. It pays off when the pixels trace
+         * many rays each, e.g. with anti-aliasing.
+         *
+         * @param costPrediction true for the pre-pass
+         * @return this builder
+         */
+        public Builder setCostPrediction(boolean costPrediction) {
+            camera.costPrediction = costPrediction;
+            return this;
+        }
+        /**
+         * Sets the debug print interval for the camera - the progress is printed
+         * in the console window by {@link ProgressListener#console(double)}.
          * If the interval is negative, it throws an IllegalArgumentException.
          *
-         * @param printInterval the interval in seconds for printing debug information
+         * @param printInterval the least progress between printings, in percents (0 for no printing)
          * @return this builder
          * @throws IllegalArgumentException if printInterval is negative
          */
@@ -369,6 +627,23 @@ public class Camera implements Cloneable {
             camera.printInterval = printInterval;
             return this;
         }
+        /**
+         * Adds a listener of the progress of rendering. The listeners are called
+         * periodically from a single reporter thread while an image is rendered.
+         *
+         * @param listener the listener
+         * @return this builder
+         * @throws IllegalArgumentException if the listener is null
+         */
+        public Builder addProgressListener(ProgressListener listener) {
+            if (listener == null) {
+                throw new IllegalArgumentException("Progress listener cannot be null");
+            }
+            List<ProgressListener> listeners = new LinkedList<>(camera.progressListeners);
+            listeners.add(listener);
+            camera.progressListeners = List.copyOf(listeners);
+            return this;
+        }
         /**
          * Sets anti-aliasing ray's number.
          * @param antiAliasingNum the number of rays for anti-aliasing
@@ -378,6 +653,21 @@ public class Camera implements Cloneable {
             camera.antiAliasingRaysNum = antiAliasingNum;
             return this;
         }
+        /**
+         * Sets the sampler of the jitter of the rays inside a pixel. With a sampler, the
+         * anti-aliasing grid is jittered too, one sample in each of its cells.
+         *
+         * @param sampler the sampler, e.g. {@link Sampler#random(long)} or {@link Sampler#halton(long)}
+         * @return this builder
+         * @throws IllegalArgumentException if the sampler is null
+         */
+        public Builder setSampler(Sampler sampler) {
+            if (sampler == null) {
+                throw new IllegalArgumentException("Sampler cannot be null");
+            }
+            camera.sampler = sampler;
+            return this;
+        }
         /**
          * Sets the camera position.
          *
@@ -405,9 +695,10 @@ public class Camera implements Cloneable {
             if (scene == null || t == null) {
                 throw new IllegalArgumentException("Scene and RayTracer cannot be null");
             }
-            if( t == RayTracerType.SIMPLE) {
-                camera.rayTracer = new SimpleRayTracer(scene);
-            }
+            camera.rayTracer = switch (t) {
+                case SIMPLE -> new SimpleRayTracer(scene);
+                case GRID -> new GridRayTracer(scene);
+            };
             return this;
         }
 
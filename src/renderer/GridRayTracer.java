@@ -0,0 +1,69 @@
+package renderer;
+
+import geometries.Intersectable.Intersection;
+import primitives.Double3;
+import primitives.Ray;
+import scene.Scene;
+
+import java.util.List;
+
+/**
+ * Ray tracer that finds intersections through a uniform grid of voxels over the
+ * scene geometries. The shading is the same as in {@link SimpleRayTracer}.
+ * The grid is built on the first traced ray, so that geometries may be added to
+ * the scene after the tracer is created, and it is built again on the first ray
+ * after geometries were added.
+ */
+public class GridRayTracer extends SimpleRayTracer {
+    /** The grid over the scene geometries, null until the first ray is traced */
+    private volatile RegularGrid grid = null;
+
+    /**
+     * Constructor to initialize the scene
+     * @param scene the scene to be rendered
+     */
+    public GridRayTracer(Scene scene) {
+        super(scene);
+    }
+
+    /**
+     * Returns the grid, building it on the first call and after the geometries of the scene changed
+     * @return the grid over the scene geometries
+     */
+    private RegularGrid getGrid() {
+        RegularGrid result = grid;
+        if (result == null || !result.isBuiltFrom(scene.geometries)) {
+            synchronized (this) {
+                result = grid;
+                if (result == null || !result.isBuiltFrom(scene.geometries))
+                    grid = result = new RegularGrid(scene.geometries);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    protected Intersection findClosestIntersection(Ray ray) {
+        return getGrid().findClosestIntersection(ray);
+    }
+
+    @Override
+    protected Intersection[] findClosestIntersections(List<Ray> rays) {
+        // the grid walks the voxels of each ray separately
+        RegularGrid grid = getGrid();
+        Intersection[] result = new Intersection[rays.size()];
+        int i = 0;
+        for (Ray ray : rays) result[i++] = grid.findClosestIntersection(ray);
+        return result;
+    }
+
+    @Override
+    protected boolean isOccluded(Ray ray, double tMax) {
+        return getGrid().isOccluded(ray, tMax, MIN_CALC_COLOR_K);
+    }
+
+    @Override
+    protected Double3 findTransmittance(Ray ray, double tMax) {
+        return getGrid().calculateTransmittance(ray, tMax, MIN_CALC_COLOR_K);
+    }
+}
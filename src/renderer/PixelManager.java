@@ -1,110 +1,104 @@
 package renderer;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
 /**
- * PixelManager is a helper class. It is used for multi-threading in the
- * renderer and
- * for follow up its progress.<br/>
- * A Camera uses one pixel manager object and several Pixel objects - one in
- * each thread.
+ * PixelManager is a helper class. It is used for following up the progress of
+ * the renderer.<br/>
+ * A Camera uses one pixel manager object for all its threads - the pixels are
+ * dealt to the threads by a {@link TileScheduler}. The threads add their
+ * rendered pixels and traced rays to striped counters ({@link LongAdder}), without
+ * locks and without waiting for each other, in batches when they render whole tiles.
+ * A single reporter thread reads the counters periodically and delivers the progress
+ * to the listeners.
  * @author Dan Zilberstein
  */
 class PixelManager {
-    /**
-     * Immutable class for object containing allocated pixel (with its row and
-     * column numbers)
-     * @param col pixel column number
-     * @param row pixel row number
-     */
-    record Pixel(int col, int row) {
-    }
+    /** Period of the progress reports in nanoseconds */
+    private static final long   REPORT_PERIOD = 100_000_000l;
 
-    /** Maximum rows of pixels */
-    private int                 maxRows       = 0;
-    /** Maximum columns of pixels */
-    private int                 maxCols       = 0;
     /** Total amount of pixels in the generated image */
-    private long                totalPixels   = 0l;
-
-    /** Currently processed row of pixels */
-    private volatile int        cRow          = 0;
-    /** Currently processed column of pixels */
-    private volatile int        cCol          = -1;
+    private final long          totalPixels;
     /** Amount of pixels that have been processed */
-    private volatile long       pixels        = 0l;
-    /** Last printed progress update percentage */
-    private volatile int        lastPrinted   = 0;
+    private final LongAdder     pixels        = new LongAdder();
+    /** Amount of rays that have been traced from the camera */
+    private final LongAdder     rays          = new LongAdder();
+    /** The listeners of the progress */
+    private final List<ProgressListener> listeners;
+    /** Start time of the rendering */
+    private final long          start         = System.nanoTime();
+    /** The reporter thread, null if there are no listeners */
+    private final Thread        reporter;
+    /** Flag of the end of the rendering, for the reporter thread */
+    private volatile boolean    done          = false;
 
-    /** Flag of debug printing of progress percentage */
-    private boolean             print         = false;
-    /** Progress percentage printing interval */
-    private long                printInterval = 100l;
-    /** Printing format */
-    private static final String PRINT_FORMAT  = "%5.1f%%\r";
     /**
-     * Mutual exclusion object for synchronizing next pixel allocation between
-     * threads
+     * Initialize pixel manager data for multi-threading, and start reporting
+     * the progress if there are listeners
+     * @param maxRows   the amount of pixel rows
+     * @param maxCols   the amount of pixel columns
+     * @param listeners the listeners of the progress
      */
-    private Object              mutexNext     = new Object();
+    PixelManager(int maxRows, int maxCols, List<ProgressListener> listeners) {
+        totalPixels    = (long) maxRows * maxCols;
+        this.listeners = listeners;
+        if (listeners.isEmpty()) {
+            reporter = null;
+        } else {
+            reporter = new Thread(this::report, "progress reporter");
+            reporter.setDaemon(true);
+            reporter.start();
+        }
+    }
+
     /**
-     * Mutual exclusion object for printing progress percentage in console window
-     * by different threads
+     * Finish pixel processing by updating the progress
+     * @param rays the amount of rays that have been traced for the pixel
      */
-    private Object              mutexPixels   = new Object();
+    void pixelDone(int rays) {
+        pixelsDone(1, rays);
+    }
 
     /**
-     * Initialize pixel manager data for multi-threading
-     * @param maxRows  the amount of pixel rows
-     * @param maxCols  the amount of pixel columns
-     * @param interval print time interval in seconds, 0 if printing is not
-     *                 required
+     * Finish processing of several pixels (e.g. a tile) by updating the progress
+     * @param pixels the amount of the pixels
+     * @param rays   the amount of rays that have been traced for the pixels
      */
-    PixelManager(int maxRows, int maxCols, double... interval) {
-        if (interval.length > 1) throw new IllegalArgumentException("only up to one interval argument is allowed");
-        this.maxRows  = maxRows;
-        this.maxCols  = maxCols;
-        totalPixels   = (long) maxRows * maxCols;
-        printInterval = interval.length == 0 ? printInterval : (long) (interval[0] * 10);
-        print         = printInterval != 0;
-        if (print) System.out.printf(PRINT_FORMAT, 0d);
+    void pixelsDone(int pixels, long rays) {
+        this.pixels.add(pixels);
+        this.rays.add(rays);
     }
 
     /**
-     * Function for thread-safe manipulating of main follow up Pixel object - this
-     * function is critical section for all the threads, and the pixel manager data
-     * is the shared data of this critical section.<br/>
-     * The function provides next available pixel number each call.
-     * @return true if next pixel is allocated, false if there are no more pixels
+     * Finish rendering - deliver the last progress and stop the reporter thread
      */
-    Pixel nextPixel() {
-        synchronized (mutexNext) {
-            if (cRow == maxRows) return null;
-
-            ++cCol;
-            if (cCol < maxCols)
-                return new Pixel(cRow, cCol);
-
-            cCol = 0;
-            ++cRow;
-            if (cRow < maxRows)
-                return new Pixel(cRow, cCol);
+    void finish() {
+        if (reporter == null) return;
+        done = true;
+        LockSupport.unpark(reporter);
+        try {
+            reporter.join();
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
         }
-        return null;
     }
 
-    /** Finish pixel processing by updating and printing of progress percentage */
-    void pixelDone() {
-        boolean flag       = false;
-        int     percentage = 0;
-        synchronized (mutexPixels) {
-            ++pixels;
-            if (print) {
-                percentage = (int) (1000l * pixels / totalPixels);
-                if (percentage - lastPrinted >= printInterval) {
-                    lastPrinted = percentage;
-                    flag        = true;
-                }
-            }
-            if (flag) System.out.printf(PRINT_FORMAT, percentage / 10d);
+    /** Body of the reporter thread - reports the progress periodically, until the end of the rendering */
+    private void report() {
+        while (!done) {
+            LockSupport.parkNanos(REPORT_PERIOD);
+            if (!done) deliver();
         }
+        deliver();
+    }
+
+    /** Delivers the current progress to the listeners */
+    private void deliver() {
+        var progress = new ProgressListener.Progress(pixels.sum(), totalPixels, rays.sum(),
+                Duration.ofNanos(System.nanoTime() - start));
+        for (ProgressListener listener : listeners) listener.progress(progress);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package renderer;
+
+import java.time.Duration;
+
+/**
+ * Listener of the progress of rendering an image.<br/>
+ * The progress is delivered periodically from a single reporter thread, so a listener
+ * needs no synchronization and does not slow the render threads down - not even when
+ * it writes to the console. The last report of an image is always the complete one.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+    /**
+     * Receives the progress of rendering
+     *
+     * @param progress the progress so far
+     */
+    void progress(Progress progress);
+
+    /**
+     * Snapshot of the progress of rendering an image
+     *
+     * @param pixels      the amount of pixels that have been rendered
+     * @param totalPixels the amount of pixels of the image
+     * @param rays        the amount of rays that have been traced from the camera
+     * @param elapsed     the time since rendering has started
+     */
+    record Progress(long pixels, long totalPixels, long rays, Duration elapsed) {
+        /**
+         * Returns the rendered part of the image
+         *
+         * @return the percentage of the rendered pixels
+         */
+        public double percentage() {
+            return totalPixels == 0 ? 100 : 100d * pixels / totalPixels;
+        }
+
+        /**
+         * Returns the rate of tracing rays from the camera
+         *
+         * @return the average amount of rays per second
+         */
+        public double raysPerSecond() {
+            long nanos = elapsed.toNanos();
+            return nanos == 0 ? 0 : rays * 1e9 / nanos;
+        }
+
+        /**
+         * Returns the estimated time to the end of rendering, by the rate of the pixels so far
+         *
+         * @return the estimated remaining time, or null while no pixel has been rendered
+         */
+        public Duration eta() {
+            return pixels == 0 ? null : elapsed.multipliedBy(totalPixels - pixels).dividedBy(pixels);
+        }
+
+        /**
+         * Checks whether the image is complete
+         *
+         * @return true if all the pixels have been rendered
+         */
+        public boolean isDone() {
+            return pixels == totalPixels;
+        }
+    }
+
+    /**
+     * Creates a listener that prints the progress in the console window, overwriting
+     * the same line: the percentage, the estimated remaining time and the rays per second
+     *
+     * @param interval the least progress between two printings, in percents
+     * @return the listener
+     */
+    static ProgressListener console(double interval) {
+        return new ProgressListener() {
+            /** Last printed progress percentage */
+            private double lastPrinted = -interval;
+
+            @Override
+            public void progress(Progress progress) {
+                double percentage = progress.percentage();
+                if (percentage - lastPrinted < interval && !progress.isDone()) return;
+                lastPrinted = percentage;
+                Duration eta = progress.eta();
+                System.out.printf("%5.1f%% ETA %s %.0f rays/s%s", percentage,
+                        eta == null ? "--:--" : String.format("%d:%02d", eta.toMinutes(), eta.toSecondsPart()),
+                        progress.raysPerSecond(), progress.isDone() ? "\n" : "\r");
+            }
+        };
+    }
+}
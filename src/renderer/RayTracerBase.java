@@ -30,4 +30,11 @@ public abstract class RayTracerBase {
      */
     public abstract Color traceRay(Ray ray);
     public abstract Color traceBeam(List<Ray> rays);
+
+    /**
+     * Prepares the tracer for a rendering of the scene, before any ray of the rendering
+     * is traced. The scene must not change during the rendering. The default does nothing.
+     */
+    public void prepare() {
+    }
 }
@@ -0,0 +1,407 @@
+package renderer;
+
+import geometries.BoundingBox;
+import geometries.Geometries;
+import geometries.Intersectable;
+import geometries.Intersectable.Hit;
+import geometries.Intersectable.Intersection;
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Uniform grid of voxels over the geometries of a scene, traversed by 3D-DDA.
+ * Every cell keeps the geometries whose bounding boxes overlap it, and a ray visits
+ * only the cells it passes through, in order of distance. Unbounded geometries are
+ * kept aside and tested against every ray.
+ */
+class RegularGrid {
+    /** Average amount of cells per bounded geometry, used to size the grid */
+    private static final double DENSITY = 3;
+    /** Maximal amount of cells on each axis */
+    private static final int MAX_RESOLUTION = 128;
+
+    /** Geometries of the grid - the cells keep indices into this array */
+    private final Intersectable[] objects;
+    /** Unbounded geometries that are tested directly */
+    private final Intersectable[] unbounded;
+    /** Bounds of the grid, null if there are no bounded geometries */
+    private final BoundingBox box;
+    /** Amount of cells on each axis */
+    private final int nX, nY, nZ;
+    /** Size of a cell on each axis */
+    private final double cellX, cellY, cellZ;
+    /** Indices of the geometries overlapping each cell, null for an empty cell */
+    private final int[][] cells;
+
+    /**
+     * Pool of the mailboxes of the queries - the last ray that tested each geometry, so that
+     * a geometry spanning several cells is tested only once per ray. A query takes a mailbox
+     * from the pool and returns it, so there are about as many mailboxes as queries that run
+     * at once - and not one per thread, which would be one per tile with virtual threads.
+     */
+    private final AtomicReferenceArray<Mailbox> mailboxes =
+            new AtomicReferenceArray<>(2 * Runtime.getRuntime().availableProcessors());
+    /** The version of the geometries that the grid was built from */
+    private final int version;
+
+    /** Record of the rays of a query that tested each geometry */
+    private static final class Mailbox {
+        /** Stamp of the last ray that tested each geometry */
+        final int[] stamps;
+        /** Stamp of the current ray */
+        int ray = 0;
+
+        Mailbox(int size) { stamps = new int[size]; }
+
+        /**
+         * Starts a new ray
+         * @return the stamp of the new ray
+         */
+        int next() {
+            if (++ray == 0) {
+                Arrays.fill(stamps, 0);
+                ray = 1;
+            }
+            return ray;
+        }
+
+        /**
+         * Marks a geometry as tested by the current ray
+         * @param id index of the geometry
+         * @return true if the geometry was not tested by the current ray before
+         */
+        boolean visit(int id) {
+            if (stamps[id] == ray) return false;
+            stamps[id] = ray;
+            return true;
+        }
+    }
+
+    /**
+     * Builds the grid over the geometries. The resolution is derived from the amount
+     * of geometries and the bounds of the scene, so that there are about
+     * {@link #DENSITY} cells per geometry and the cells are nearly cubes.
+     * @param geometries the geometries of the scene
+     */
+    RegularGrid(Geometries geometries) {
+        List<Intersectable> bounded = new ArrayList<>();
+        List<BoundingBox> boxes = new ArrayList<>();
+        List<Intersectable> infinite = new LinkedList<>();
+        BoundingBox bounds = null;
+        for (Intersectable object : geometries.getGeometries()) {
+            BoundingBox objectBox = object.getBoundingBox();
+            if (objectBox.isEmpty()) continue; // cannot be hit
+            if (objectBox.isInfinite()) {
+                infinite.add(object);
+            } else {
+                bounded.add(object);
+                boxes.add(objectBox);
+                bounds = bounds == null ? objectBox : bounds.union(objectBox);
+            }
+        }
+        objects = bounded.toArray(new Intersectable[0]);
+        unbounded = infinite.toArray(new Intersectable[0]);
+        version = geometries.getVersion();
+
+        if (bounds == null) {
+            box = null;
+            nX = nY = nZ = 0;
+            cellX = cellY = cellZ = 0;
+            cells = null;
+            return;
+        }
+
+        // pad the bounds so that a flat scene still has a volume
+        double extent = Math.max(bounds.maxX - bounds.minX, Math.max(bounds.maxY - bounds.minY, bounds.maxZ - bounds.minZ));
+        double pad = extent > 0 ? extent * 1e-6 : 1e-6;
+        box = new BoundingBox(bounds.minX - pad, bounds.minY - pad, bounds.minZ - pad,
+                bounds.maxX + pad, bounds.maxY + pad, bounds.maxZ + pad);
+        double dX = box.maxX - box.minX;
+        double dY = box.maxY - box.minY;
+        double dZ = box.maxZ - box.minZ;
+        double factor = Math.cbrt(DENSITY * objects.length / (dX * dY * dZ));
+        nX = resolution(dX * factor);
+        nY = resolution(dY * factor);
+        nZ = resolution(dZ * factor);
+        cellX = dX / nX;
+        cellY = dY / nY;
+        cellZ = dZ / nZ;
+
+        // count the geometries of each cell, then allocate the cells and fill them
+        int[] counts = new int[nX * nY * nZ];
+        for (BoundingBox b : boxes)
+            for (int z = cellZ(b.minZ); z <= cellZ(b.maxZ); ++z)
+                for (int y = cellY(b.minY); y <= cellY(b.maxY); ++y)
+                    for (int x = cellX(b.minX); x <= cellX(b.maxX); ++x)
+                        ++counts[index(x, y, z)];
+        cells = new int[counts.length][];
+        for (int i = 0; i < counts.length; ++i)
+            if (counts[i] > 0) cells[i] = new int[counts[i]];
+        for (int id = 0; id < objects.length; ++id) {
+            BoundingBox b = boxes.get(id);
+            for (int z = cellZ(b.minZ); z <= cellZ(b.maxZ); ++z)
+                for (int y = cellY(b.minY); y <= cellY(b.maxY); ++y)
+                    for (int x = cellX(b.minX); x <= cellX(b.maxX); ++x) {
+                        int index = index(x, y, z);
+                        cells[index][--counts[index]] = id;
+                    }
+        }
+        // keep the geometries of each cell in the order they were added to the scene
+        for (int[] cell : cells)
+            if (cell != null) Arrays.sort(cell);
+    }
+
+    /**
+     * Rounds and clamps the amount of cells on an axis
+     * @param n the ideal amount of cells
+     * @return the amount of cells
+     */
+    private static int resolution(double n) {
+        return (int) Math.max(1, Math.min(MAX_RESOLUTION, Math.round(n)));
+    }
+
+    /**
+     * Calculates the cell column of an x coordinate
+     * @param x the coordinate
+     * @return the cell column, clamped into the grid
+     */
+    private int cellX(double x) { return clamp((int) ((x - box.minX) / cellX), nX); }
+
+    /**
+     * Calculates the cell row of a y coordinate
+     * @param y the coordinate
+     * @return the cell row, clamped into the grid
+     */
+    private int cellY(double y) { return clamp((int) ((y - box.minY) / cellY), nY); }
+
+    /**
+     * Calculates the cell layer of a z coordinate
+     * @param z the coordinate
+     * @return the cell layer, clamped into the grid
+     */
+    private int cellZ(double z) { return clamp((int) ((z - box.minZ) / cellZ), nZ); }
+
+    /**
+     * Clamps a cell index into the grid
+     * @param i the index
+     * @param n the amount of cells on the axis
+     * @return the clamped index
+     */
+    private static int clamp(int i, int n) { return i < 0 ? 0 : i >= n ? n - 1 : i; }
+
+    /**
+     * Calculates the index of a cell in the cells array
+     * @param x cell column
+     * @param y cell row
+     * @param z cell layer
+     * @return the index
+     */
+    private int index(int x, int y, int z) { return x + nX * (y + nY * z); }
+
+    /**
+     * Finds the closest intersection of a ray with the geometries. The traversal stops
+     * at the first cell that contains a confirmed hit, i.e. a hit that is not farther
+     * than the exit of the ray from the cell.
+     * @param ray the ray
+     * @return the closest intersection, or null if there is none
+     */
+    Intersection findClosestIntersection(Ray ray) {
+        Hit hit = new Hit(Double.POSITIVE_INFINITY);
+        for (Intersectable object : unbounded) object.calculateClosestHit(ray, 0, hit);
+        if (cells == null) return hit.toIntersection(ray);
+        double tEnter = box.intersect(ray, hit.t);
+        if (tEnter == Double.POSITIVE_INFINITY) return hit.toIntersection(ray);
+
+        Mailbox visited = acquire();
+        try {
+            visited.next();
+            Traversal cell = new Traversal(ray, tEnter);
+            do {
+                int[] ids = cells[index(cell.x, cell.y, cell.z)];
+                if (ids != null) {
+                    for (int id : ids) {
+                        if (visited.visit(id)) objects[id].calculateClosestHit(ray, 0, hit);
+                    }
+                }
+                // a hit inside the current cell cannot be preceded by a hit in a later cell
+                if (hit.t <= cell.exit()) break;
+            } while (cell.step());
+            return hit.toIntersection(ray);
+        } finally {
+            release(visited);
+        }
+    }
+
+    /**
+     * Checks whether an opaque geometry intersects a ray before a maximal distance.
+     * The walk stops on the first blocker, or at the cell that contains the maximal distance.
+     * @param ray  the ray
+     * @param tMax the maximal distance along the ray (excluded)
+     * @param kMin a geometry whose transparency is lower than it is opaque
+     * @return true if the ray is blocked
+     */
+    boolean isOccluded(Ray ray, double tMax, double kMin) {
+        for (Intersectable object : unbounded)
+            if (object.isOccluded(ray, tMax, kMin)) return true;
+        if (cells == null) return false;
+        double tEnter = box.intersect(ray, tMax);
+        if (tEnter == Double.POSITIVE_INFINITY) return false;
+
+        Mailbox visited = acquire();
+        try {
+            visited.next();
+            Traversal cell = new Traversal(ray, tEnter);
+            do {
+                int[] ids = cells[index(cell.x, cell.y, cell.z)];
+                if (ids != null)
+                    for (int id : ids)
+                        if (visited.visit(id) && objects[id].isOccluded(ray, tMax, kMin)) return true;
+            } while (cell.exit() < tMax && cell.step());
+            return false;
+        } finally {
+            release(visited);
+        }
+    }
+
+    /**
+     * Multiplies the transparency of the intersections of a ray before a maximal distance,
+     * and stops as soon as the product falls below the minimum
+     * @param ray  the ray
+     * @param tMax the maximal distance along the ray (excluded)
+     * @param kMin the minimal transmittance of interest
+     * @return the transmittance, or {@link Double3#ZERO} if it fell below the minimum
+     */
+    Double3 calculateTransmittance(Ray ray, double tMax, double kMin) {
+        Double3 k = Double3.ONE;
+        for (Intersectable object : unbounded) {
+            k = object.calculateTransmittance(ray, tMax, k, kMin);
+            if (k == Double3.ZERO) return k;
+        }
+        if (cells == null) return k;
+        double tEnter = box.intersect(ray, tMax);
+        if (tEnter == Double.POSITIVE_INFINITY) return k;
+
+        Mailbox visited = acquire();
+        try {
+            visited.next();
+            Traversal cell = new Traversal(ray, tEnter);
+            do {
+                int[] ids = cells[index(cell.x, cell.y, cell.z)];
+                if (ids != null)
+                    for (int id : ids) {
+                        if (!visited.visit(id)) continue;
+                        k = objects[id].calculateTransmittance(ray, tMax, k, kMin);
+                        if (k == Double3.ZERO) return k;
+                    }
+            } while (cell.exit() < tMax && cell.step());
+            return k;
+        } finally {
+            release(visited);
+        }
+    }
+
+    /**
+     * Checks whether the grid is up to date with its geometries
+     * @param geometries the geometries of the scene
+     * @return true if no geometry was added since the grid was built
+     */
+    boolean isBuiltFrom(Geometries geometries) {
+        return version == geometries.getVersion();
+    }
+
+    /**
+     * Takes a mailbox for a query from the pool, or creates one if the pool is empty
+     * @return the mailbox
+     */
+    private Mailbox acquire() {
+        int size = mailboxes.length();
+        int start = (int) (Thread.currentThread().threadId() % size);
+        for (int i = 0; i < size; ++i) {
+            Mailbox box = mailboxes.getAndSet((start + i) % size, null);
+            if (box != null) return box;
+        }
+        return new Mailbox(objects.length);
+    }
+
+    /**
+     * Returns a mailbox to the pool - it is dropped if the pool is full
+     * @param box the mailbox
+     */
+    private void release(Mailbox box) {
+        int size = mailboxes.length();
+        int start = (int) (Thread.currentThread().threadId() % size);
+        for (int i = 0; i < size; ++i)
+            if (mailboxes.compareAndSet((start + i) % size, null, box)) return;
+    }
+
+    /** State of the 3D-DDA walk of a ray through the cells of the grid */
+    private final class Traversal {
+        /** Current cell */
+        int x, y, z;
+        /** Step direction on each axis (-1, 0 or 1) */
+        private final int stepX, stepY, stepZ;
+        /** Distance along the ray to the next cell boundary on each axis */
+        private double tMaxX, tMaxY, tMaxZ;
+        /** Distance along the ray between two cell boundaries on each axis */
+        private final double tDeltaX, tDeltaY, tDeltaZ;
+
+        /**
+         * Starts the walk at the point where the ray enters the grid
+         * @param ray    the ray
+         * @param tEnter distance along the ray to the grid entry
+         */
+        Traversal(Ray ray, double tEnter) {
+            Point head = ray.getHead();
+            Vector dir = ray.getDirection();
+            double oX = head.getX(), oY = head.getY(), oZ = head.getZ();
+            double dX = dir.getX(), dY = dir.getY(), dZ = dir.getZ();
+            x = cellX(oX + dX * tEnter);
+            y = cellY(oY + dY * tEnter);
+            z = cellZ(oZ + dZ * tEnter);
+
+            stepX = dX > 0 ? 1 : dX < 0 ? -1 : 0;
+            stepY = dY > 0 ? 1 : dY < 0 ? -1 : 0;
+            stepZ = dZ > 0 ? 1 : dZ < 0 ? -1 : 0;
+            tMaxX = stepX == 0 ? Double.POSITIVE_INFINITY : (box.minX + (x + (stepX > 0 ? 1 : 0)) * cellX - oX) / dX;
+            tMaxY = stepY == 0 ? Double.POSITIVE_INFINITY : (box.minY + (y + (stepY > 0 ? 1 : 0)) * cellY - oY) / dY;
+            tMaxZ = stepZ == 0 ? Double.POSITIVE_INFINITY : (box.minZ + (z + (stepZ > 0 ? 1 : 0)) * cellZ - oZ) / dZ;
+            tDeltaX = stepX == 0 ? Double.POSITIVE_INFINITY : cellX / Math.abs(dX);
+            tDeltaY = stepY == 0 ? Double.POSITIVE_INFINITY : cellY / Math.abs(dY);
+            tDeltaZ = stepZ == 0 ? Double.POSITIVE_INFINITY : cellZ / Math.abs(dZ);
+        }
+
+        /**
+         * Distance along the ray where it leaves the current cell
+         * @return the exit distance
+         */
+        double exit() { return Math.min(tMaxX, Math.min(tMaxY, tMaxZ)); }
+
+        /**
+         * Moves to the next cell along the ray
+         * @return false if the ray left the grid
+         */
+        boolean step() {
+            if (tMaxX <= tMaxY && tMaxX <= tMaxZ) {
+                x += stepX;
+                tMaxX += tDeltaX;
+                return x >= 0 && x < nX;
+            }
+            if (tMaxY <= tMaxZ) {
+                y += stepY;
+                tMaxY += tDeltaY;
+                return y >= 0 && y < nY;
+            }
+            z += stepZ;
+            tMaxZ += tDeltaZ;
+            return z >= 0 && z < nZ;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package renderer;
+
+/**
+ * Source of the sample numbers of the renderer, such as the jitter of the rays inside a pixel.<br/>
+ * A sample is a function of its seed, of its pixel, of its index among the samples of the
+ * pixel and of its dimension (for instance 0 for x and 1 for y), and not of the order in
+ * which the samples are drawn. The samplers therefore keep no state: any number of render
+ * threads use them without contention, and an image comes out bit-identical on every run,
+ * whatever the amount of threads and the order of the pixels.
+ */
+@FunctionalInterface
+public interface Sampler {
+    /** Independent random samples, with seed 0 */
+    Sampler RANDOM = random(0);
+
+    /**
+     * Returns a sample
+     *
+     * @param col       column of the pixel
+     * @param row       row of the pixel
+     * @param index     index of the sample among the samples of the pixel
+     * @param dimension dimension of the sample
+     * @return the sample, in [0, 1)
+     */
+    double get(int col, int row, long index, int dimension);
+
+    /**
+     * Creates a sampler of independent uniform random samples - each sample is a
+     * hash of its seed, pixel, index and dimension (counter-based random numbers)
+     *
+     * @param seed the seed - different seeds give different sequences
+     * @return the sampler
+     */
+    static Sampler random(long seed) {
+        return (col, row, index, dimension) -> toUnit(hash(seed, col, row, index, dimension));
+    }
+
+    /**
+     * Creates a sampler of the low-discrepancy Halton sequence - the radical inverse of the
+     * index in the prime base of the dimension. The samples of consecutive indices fill
+     * the unit interval evenly. Each pixel shifts the sequence by a random amount
+     * (Cranley-Patterson rotation), so that neighbouring pixels do not repeat a pattern.
+     *
+     * @param seed the seed of the shifts
+     * @return the sampler
+     */
+    static Sampler halton(long seed) {
+        return (col, row, index, dimension) -> {
+            double sample = radicalInverse(index, base(dimension))
+                    + toUnit(hash(seed, col, row, -1, dimension));
+            return sample < 1 ? sample : sample - 1;
+        };
+    }
+
+    /**
+     * Hashes the coordinates of a sample by rounds of the SplitMix finalizer,
+     * each after a step of its Weyl sequence
+     *
+     * @param seed      the seed
+     * @param col       column of the pixel
+     * @param row       row of the pixel
+     * @param index     index of the sample
+     * @param dimension dimension of the sample
+     * @return the hash
+     */
+    private static long hash(long seed, int col, int row, long index, int dimension) {
+        final long gamma = 0x9E3779B97F4A7C15L;
+        long h = mix(seed + gamma + (((long) col << 32) ^ (row & 0xFFFFFFFFL)));
+        h = mix(h + gamma + index);
+        return mix(h + gamma + dimension);
+    }
+
+    /**
+     * The SplitMix finalizer - a bijection of the longs that spreads each bit over all the others
+     *
+     * @param z the number to mix
+     * @return the mixed number
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Maps a hash to a number in [0, 1) by its 53 upper bits
+     *
+     * @param hash the hash
+     * @return the number
+     */
+    private static double toUnit(long hash) {
+        return (hash >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Calculates the radical inverse of a number - its digits in a base mirrored around the point
+     *
+     * @param index the number (non-negative)
+     * @param base  the base
+     * @return the radical inverse, in [0, 1)
+     */
+    private static double radicalInverse(long index, int base) {
+        double inverse = 1.0 / base;
+        double digit = inverse;
+        double result = 0;
+        for (; index > 0; index /= base, digit *= inverse)
+            result += (index % base) * digit;
+        return result;
+    }
+
+    /**
+     * Returns the base of a Halton dimension - one of the first eight primes
+     *
+     * @param dimension the dimension
+     * @return the base
+     */
+    private static int base(int dimension) {
+        return switch (dimension % 8) {
+            case 0 -> 2;
+            case 1 -> 3;
+            case 2 -> 5;
+            case 3 -> 7;
+            case 4 -> 11;
+            case 5 -> 13;
+            case 6 -> 17;
+            default -> 19;
+        };
+    }
+}
@@ -10,66 +10,66 @@ import geometries.Intersectable. Intersection;
 public class SimpleRayTracer extends RayTracerBase {
 
     private static final int MAX_CALC_COLOR_LEVEL = 10;
-    private static final double MIN_CALC_COLOR_K = 0.001;
+    static final double MIN_CALC_COLOR_K = 0.001;
     private static final Double3 INITIAL_K = Double3.ONE;
 
-    private Double3 transparency(Intersection intersection){
-        Double3 ktr = Double3.ONE;
-        Point point = intersection.point;
-        LightSource lightSource = intersection.lightSource;
-        double lightDistance = lightSource.getDistance(point);
-
-        Ray shadowRay = new Ray(point,intersection.l.scale(-1),intersection.n);
-
-        List<Intersection> intersections = scene.geometries.calculateIntersections(shadowRay);
+    /** Scratch space of the render threads, reused by all the rays that a thread traces */
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
 
-        if (intersections == null ) return ktr;
-
-        for (Intersection i : intersections) {
-            // Ignore the geometry the point is already on
-            // Check if the transparency coefficient is less than the minimum threshold
-            if (lightDistance*lightDistance>i.point.distanceSquared(intersection.point) || !i.geometry.getMaterial().kT.lowerThan(MIN_CALC_COLOR_K)) {
-                ktr = ktr.product(i.material.kT);
-
-                if(ktr.lowerThan(MIN_CALC_COLOR_K)){
-                    return Double3.ZERO;
-                }
-            }
-            // Otherwise, continue checking other intersections
+    /**
+     * Scratch space of a render thread. The color of the local effects is kept per recursion
+     * level, since a level holds it while the deeper levels calculate theirs.
+     */
+    private static final class Scratch {
+        /** Sum of the colors of the rays of a beam */
+        final MutableColor beam = new MutableColor();
+        /** Ambient light at a primary intersection */
+        final MutableColor ambient = new MutableColor();
+        /** Color of the local effects per recursion level */
+        final MutableColor[] local = new MutableColor[MAX_CALC_COLOR_LEVEL + 1];
+        /** Light of a single light source */
+        final MutableColor light = new MutableColor();
+        /** Reflection direction */
+        final MutableVector reflection = new MutableVector();
+
+        /** Creates the scratch space of a thread */
+        Scratch() {
+            for (int level = 0; level < local.length; ++level) local[level] = new MutableColor();
         }
+    }
 
-        return ktr;
+    /**
+     * Whether all the scene geometries are opaque, checked once per rendering by {@link #prepare()}.
+     * It stays false for a tracer that was not prepared, which takes the general transmittance path.
+     */
+    private boolean opaque = false;
 
-    }
     /**
-     * Checks if the intersection point is unshaded by any geometry.
+     * Calculates the transparency of the geometries between the intersection point and its light source.
+     * When all the geometries are opaque, a blocker either stops the light or not, and the first blocker
+     * found by the any-hit occlusion query is enough.
      *
-     * @param intersection the intersection to check
-     * @return true if the point is unshaded, false otherwise
+     * @param intersection the intersection, with its light source set
+     * @return the product of the transparency coefficients of the blockers, or zero if too little light passes
      */
-    private boolean unshaded(Intersection intersection) {
-
-        Point point = intersection.point;
-        LightSource lightSource = intersection.lightSource;
-        Vector lightDir = lightSource.getL(point);
-        double lightDistance = lightSource.getDistance(point);
-
-        Ray shadowRay = new Ray(point,intersection.l.scale(-1),intersection.n);
-
-        List<Intersection> intersections = scene.geometries.calculateIntersections(shadowRay);
-
-        if (intersections == null ) return true;
-
-        for (Intersection i : intersections) {
-            // Ignore the geometry the point is already on
-                // Check if the transparency coefficient is less than the minimum threshold
-                if (lightDistance*lightDistance>i.point.distanceSquared(intersection.point) || !i.geometry.getMaterial().kT.lowerThan(MIN_CALC_COLOR_K)) {
-                    return false; // This object blocks enough light to cause a shadow
-                }
-                // Otherwise, continue checking other intersections
-        }
+    private Double3 transparency(Intersection intersection){
+        Ray shadowRay = new Ray(intersection.point, intersection.lightSource.getReversedL(intersection.point),
+                intersection.n);
+        // the shadow ray starts slightly off the surface - the distance to the light is measured from its head
+        double distance = intersection.lightSource.getDistance(shadowRay.getHead());
+        if (opaque)
+            return isOccluded(shadowRay, distance) ? Double3.ZERO : Double3.ONE;
+        return findTransmittance(shadowRay, distance);
+    }
 
-        return true; // No blockers with low transparency found, so the point is unshaded
+    /**
+     * Checks whether all the scene geometries are opaque, so that the shadow rays of the rendering
+     * may use the any-hit occlusion query. It is checked on every rendering, since the materials may
+     * change in place between renderings without any change of the geometries.
+     */
+    @Override
+    public void prepare() {
+        opaque = scene.geometries.isOpaque(MIN_CALC_COLOR_K);
     }
     // This method calculates the color at a given point in the scene
     /**
@@ -86,10 +86,10 @@ public class SimpleRayTracer extends RayTracerBase {
             return Color.BLACK;
         }
         // Calculate the ambient light contribution
-        Color ambientLight = scene.ambientLight.getIntensity().scale(intersection.material.kA);
+        MutableColor ambientLight = SCRATCH.get().ambient.set(scene.ambientLight.getIntensity()).scale(intersection.material.kA);
         // Calculate the local effects from light sources
         Color recursiveColor = calcColor(intersection, MAX_CALC_COLOR_LEVEL, INITIAL_K);
-        return ambientLight.add(recursiveColor);
+        return ambientLight.add(recursiveColor).toColor();
     }
     // Constructor receives a scene and uses super to initialize the base class
 
@@ -114,20 +114,23 @@ public class SimpleRayTracer extends RayTracerBase {
     }
 
     public Color traceBeam(List<Ray> rays) {
-        Color result = Color.BLACK;
+        MutableColor result = SCRATCH.get().beam.set(Color.BLACK);
+        // the rays of a beam are nearly parallel, so they are traced through the geometries together
+        Intersection[] closestIntersections = findClosestIntersections(rays);
+        int i = 0;
         for(Ray r : rays) {
-            Intersection closestIntersection = findClosestIntersection(r);
+            Intersection closestIntersection = closestIntersections[i++];
             if (closestIntersection != null) {
                 // Calculate the color at the intersection point
-                result = result.add(calcColor(closestIntersection, r));
+                result.add(calcColor(closestIntersection, r));
             }
             else{
                 // If no intersection, add the background color
-                result = result.add(scene.background);
+                result.add(scene.background);
             }
         }
         // Calculate the color at the intersection point
-        return result.reduce(rays.size());
+        return result.reduce(rays.size()).toColor();
     }
     /**
      * Prepares intersection data for lighting calculations.
@@ -140,7 +143,9 @@ public class SimpleRayTracer extends RayTracerBase {
             return false;
         }
         intersection.v = rayDirection;
-        intersection.n = intersection.geometry.getNormal(intersection.point);
+        // transformed objects deliver the normal along with the intersection
+        if (intersection.n == null)
+            intersection.n = intersection.geometry.getNormal(intersection.point);
         intersection.nv = intersection.v.dotProduct(intersection.n);
         return !Util.isZero(intersection.nv);
     }
@@ -157,40 +162,43 @@ public class SimpleRayTracer extends RayTracerBase {
         return Util.alignZero(intersection.nv * intersection.nl) > 0;
     }
     /**
-     * Calculates the specular component of the light at the intersection point.
+     * Calculates the specular factor of the light at the intersection point.
      *
      * @param intersection the intersection to evaluate
-     * @return the specular component scaled by the material's specular coefficient
+     * @param reflection   scratch vector for the reflection of the light
+     * @return the factor of the material's specular coefficient
      */
-    private Double3 calcSpecular(Intersection intersection) {
+    private double calcSpecular(Intersection intersection, MutableVector reflection) {
         // Calculate the reflection vector of l about the normal n
-        Vector reflection = intersection.l.add(
-                intersection.n.scale(-2 * intersection.nl)
-        );
+        reflection.set(intersection.l).add(intersection.n, -2 * intersection.nl);
         // Calculate the cosine of the angle between view vector and reflection vector
-        double cosAngle = Math.max(0, -intersection.v.dotProduct(reflection));
+        double cosAngle = Math.max(0, -reflection.dotProduct(intersection.v));
         // Calculate the specular highlight factor using the shininess exponent
-        double specularFactor = Math.pow(cosAngle, intersection.material.nShininess);
-        // Return the scaled specular color component
-        return intersection.material.kS.scale(specularFactor);
+        return Math.pow(cosAngle, intersection.material.nShininess);
     }
     /**
-     * Calculates the diffusive component of the light at the intersection point.
+     * Calculates the diffusive factor of the light at the intersection point.
      *
      * @param intersection the intersection to evaluate
-     * @return the diffusive component scaled by the material's diffuse coefficient
+     * @return the factor of the material's diffuse coefficient
      */
-    private Double3 calcDiffusive(Intersection intersection) {
-        return intersection.material.kD.scale(Math.abs(intersection.nl));
+    private double calcDiffusive(Intersection intersection) {
+        return Math.abs(intersection.nl);
     }
     /**
      * Calculates the local lighting effects (diffuse and specular) at the intersection point.
      *
      * @param intersection the intersection to evaluate
-     * @return the resulting color from all local light sources
+     * @param level        the recursion level, which owns the returned scratch color
+     * @return the resulting color from all local light sources, in scratch space of the thread
      */
-    private Color calcColorLocalEffects(Intersection intersection) {
-        Color color = intersection.geometry.getEmission(); // Start with emission color
+    private MutableColor calcColorLocalEffects(Intersection intersection, int level) {
+        // the contributions are summed in scratch space of the thread, without a color per light
+        Scratch scratch = SCRATCH.get();
+        MutableColor color = scratch.local[level].set(intersection.geometry.getEmission()); // Start with emission color
+        MutableColor light = scratch.light;
+        MutableVector reflection = scratch.reflection;
+        Material material = intersection.material;
         Double3 ktr;
         for (LightSource lightSource : scene.lights) {
             if (!setLightSource(intersection, lightSource))
@@ -198,15 +206,13 @@ public class SimpleRayTracer extends RayTracerBase {
 
             ktr = transparency(intersection);
 
-            // Light intensity at the point
-            Color iL = lightSource.getIntensity(intersection.point);
-
-            // Compute diffuse and specular components
-            Double3 diffusive = calcDiffusive(intersection);
-            Double3 specular = calcSpecular(intersection);
+            // Light intensity at the point, scaled by the diffuse and specular components
+            lightSource.getIntensity(intersection.point, light)
+                    .scale(material.kD, calcDiffusive(intersection), material.kS, calcSpecular(intersection, reflection))
+                    .scale(ktr);
 
             // Add both contributions scaled by light intensity
-            color = color.add(iL.scale(diffusive.add(specular)).scale(ktr));
+            color.add(light);
         }
 
         return color;
@@ -221,8 +227,8 @@ public class SimpleRayTracer extends RayTracerBase {
      */
     private Color calcColor(Intersection intersection, int level, Double3 k) {
         // Base case (for now just local effects, no global recursion)
-         Color base = calcColorLocalEffects(intersection);
-         return level == 1 ? base : base.add(calcGlobalEffects(intersection,level,k));
+         MutableColor base = calcColorLocalEffects(intersection, level);
+         return level == 1 ? base.toColor() : base.add(calcGlobalEffects(intersection,level,k)).toColor();
 
     }
     /**
@@ -232,7 +238,7 @@ public class SimpleRayTracer extends RayTracerBase {
      * @return the reflected ray
      */
     private Ray constructReflectedRay(Intersection intersection) {
-        Vector r = intersection.v.subtract(intersection.n.scale(2 * intersection.nv)); // Reflection direction
+        Vector r = SCRATCH.get().reflection.set(intersection.v).add(intersection.n, -2 * intersection.nv).toVector(); // Reflection direction
         return new Ray(intersection.point, r , intersection.n);
     }
 
@@ -245,14 +251,7 @@ public class SimpleRayTracer extends RayTracerBase {
     private Ray constructRefractedRay(Intersection intersection) {
         return new Ray(intersection.point, intersection.v,intersection.n); // Same direction as incoming ray
     }
-    private Color calcGlobalEffect(Ray ray, int level, Double3 k, Double3 kx) {
-
-        // Update attenuation by multiplying by this geometry's coefficient
-        Double3 kkx = k.product(kx);
-        // Stop recursion if level reached or attenuation too low
-        if (kkx.lowerThan(MIN_CALC_COLOR_K)) {
-            return Color.BLACK;
-        }
+    private Color calcGlobalEffect(Ray ray, int level, Double3 kkx, Double3 kx) {
         // Find the closest intersection point to the ray's origin
         Intersection closestIntersection = findClosestIntersection(ray);
         if (closestIntersection == null) {
@@ -263,17 +262,61 @@ public class SimpleRayTracer extends RayTracerBase {
         return preprocessIntersection(closestIntersection,ray.getDirection())? calcColor(closestIntersection, level - 1, kkx).scale(kx):Color.BLACK;
     }
     private Color calcGlobalEffects(Intersection intersection, int level, Double3 k) {
-        // Return sum of both global effects colors
-        return calcGlobalEffect(constructReflectedRay(intersection), level, k, intersection.material.kR)
-                .add(calcGlobalEffect(constructRefractedRay(intersection), level, k, intersection.material.kT));
+        Material material = intersection.material;
+        // Update attenuation by multiplying by this geometry's coefficients
+        Double3 kkr = k.product(material.kR);
+        Double3 kkt = k.product(material.kT);
+        // Stop recursion if attenuation too low - before the ray of the effect is constructed
+        Color reflected = kkr.lowerThan(MIN_CALC_COLOR_K) ? Color.BLACK
+                : calcGlobalEffect(constructReflectedRay(intersection), level, kkr, material.kR);
+        Color refracted = kkt.lowerThan(MIN_CALC_COLOR_K) ? Color.BLACK
+                : calcGlobalEffect(constructRefractedRay(intersection), level, kkt, material.kT);
+        // Return sum of both global effects colors - the caller rounds it as it adds it to its own color,
+        // so a black one may be left out
+        if (reflected == Color.BLACK) return refracted;
+        if (refracted == Color.BLACK) return reflected;
+        return reflected.add(refracted);
+    }
+    /**
+     * Finds the closest intersection of a ray with the scene geometries.
+     *
+     * @param ray the ray
+     * @return the closest intersection, or null if there is none
+     */
+    protected Intersection findClosestIntersection(Ray ray) {
+        return scene.geometries.calculateClosestIntersection(ray);
+    }
+
+    /**
+     * Finds the closest intersections of a beam of rays with the scene geometries.
+     *
+     * @param rays the rays of the beam
+     * @return the closest intersection of each ray, in the order of the rays (null for a ray without one)
+     */
+    protected Intersection[] findClosestIntersections(List<Ray> rays) {
+        return scene.geometries.calculateClosestIntersections(rays);
+    }
 
+    /**
+     * Checks whether an opaque geometry blocks a shadow ray before the light.
+     *
+     * @param ray  the shadow ray
+     * @param tMax the distance to the light
+     * @return true if the ray is blocked
+     */
+    protected boolean isOccluded(Ray ray, double tMax) {
+        return scene.geometries.isOccluded(ray, tMax, MIN_CALC_COLOR_K);
     }
-    private Intersection findClosestIntersection(Ray ray) {
-        List<Intersection> intersections = scene.geometries.calculateIntersections(ray);
-        if (intersections == null || intersections.isEmpty()) {
-            return null;
-        }
-        return ray.findClosestIntersection(intersections);
+
+    /**
+     * Calculates the transparency of the geometries along a shadow ray before the light.
+     *
+     * @param ray  the shadow ray
+     * @param tMax the distance to the light
+     * @return the product of the transparency coefficients, or zero if it is below the minimum
+     */
+    protected Double3 findTransmittance(Ray ray, double tMax) {
+        return scene.geometries.calculateTransmittance(ray, tMax, Double3.ONE, MIN_CALC_COLOR_K);
     }
 
 }
@@ -0,0 +1,379 @@
+package renderer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * TileScheduler is a helper class for multi-threading in the renderer. It deals the
+ * pixels of an image to the render threads (workers) in square tiles.<br/>
+ * The tiles are numbered row by row, and each worker starts with a contiguous range
+ * of them. A worker takes its tiles one by one from the bottom of its range; when its
+ * range is empty, it steals the upper half of the range of another worker. A range is
+ * a single atomic number (its bottom and top), so taking and stealing are a
+ * compare-and-set each, without locks - most of the time a worker only touches its own
+ * range. The pixels of a tile are visited in Morton (Z) order, so that consecutive
+ * pixels are close to each other in both directions and share the geometries they hit.<br/>
+ * Optionally, the cost of the tiles is predicted by a pre-pass at 1/8 resolution. The
+ * workers run the pre-pass together before they take their first tiles, each predicting
+ * the image tiles it takes from a shared counter. Then the tiles that are predicted to
+ * be expensive are cut into quarters (in Morton order, a quarter of a tile is a quarter
+ * of its codes), the tiles are sorted from the most expensive down and dealt to the
+ * workers like cards. Each worker renders its most expensive tiles first, and the end
+ * of the rendering, when the workers run out of tiles and steal, is left to the cheap tiles.
+ */
+class TileScheduler {
+    /** Step of the pixels of the cost pre-pass, in both directions */
+    static final int         PREPASS_STEP     = 8;
+    /** Amount of tiles per worker that tiles of predicted cost are cut down to, at most */
+    private static final int TILES_PER_WORKER = 8;
+
+    /**
+     * Predictor of the cost of rendering a pixel
+     */
+    @FunctionalInterface
+    interface PixelCost {
+        /**
+         * Predicts the cost of a pixel
+         * @param col pixel column number
+         * @param row pixel row number
+         * @return the predicted cost, in any unit that is the same for all the pixels
+         */
+        long cost(int col, int row);
+    }
+
+    /**
+     * Action on a pixel
+     */
+    @FunctionalInterface
+    interface PixelAction {
+        /**
+         * Acts on a pixel
+         * @param col pixel column number
+         * @param row pixel row number
+         */
+        void apply(int col, int row);
+    }
+
+    /** Amount of pixel columns */
+    private final int maxCols;
+    /** Amount of pixel rows */
+    private final int maxRows;
+    /** Side of a tile in pixels */
+    private final int tileSize;
+    /** Amount of tile columns */
+    private final int tileCols;
+    /** Amount of tiles - zero until the tiles ordered by cost are dealt */
+    private int tiles;
+    /** The image tile of each tile, by its number - null if tiles are not cut and ordered by cost */
+    private int[] gridTiles;
+    /** The first Morton code of each tile - null if tiles are not cut and ordered by cost */
+    private int[] firstCodes;
+    /** The Morton code after the last one of each tile - null if tiles are not cut and ordered by cost */
+    private int[] endCodes;
+    /** Side of the Morton square that covers a tile - the power of 2 not smaller than the tile */
+    private final int mortonSize;
+    /** The range of the tiles of each worker - bottom in the high half and top (excluded) in the low half */
+    private final AtomicLongArray ranges;
+    /** The predictor of the cost of a pixel - null if tiles are not cut and ordered by cost */
+    private final PixelCost cost;
+    /** The predicted cost of a pixel of each image tile - null if tiles are not cut and ordered by cost */
+    private final double[] densities;
+    /** Step between the image tiles in the order of the pre-pass - prime to the amount of image tiles */
+    private final int stride;
+    /** Counter of the image tiles that were taken for the pre-pass */
+    private final AtomicInteger nextPrediction = new AtomicInteger();
+    /** Counter of the image tiles that were predicted */
+    private final AtomicInteger predicted = new AtomicInteger();
+    /** Terminates when the tiles are dealt, or when the pre-pass fails */
+    private final Phaser dealt = new Phaser(1);
+
+    /**
+     * Initialize the scheduler of an image
+     * @param maxRows  the amount of pixel rows
+     * @param maxCols  the amount of pixel columns
+     * @param tileSize side of a tile in pixels
+     * @param workers  the amount of workers
+     * @throws IllegalArgumentException if the tile size or the amount of workers is not positive
+     */
+    TileScheduler(int maxRows, int maxCols, int tileSize, int workers) {
+        this(maxRows, maxCols, tileSize, workers, null);
+    }
+
+    /**
+     * Initialize the scheduler of an image, with the tiles cut and ordered by their
+     * predicted cost. The cost of each tile is predicted by the pixels of every
+     * {@link #PREPASS_STEP} columns and rows in it, by {@link #predict()} - the workers
+     * run it when they take their first tiles.
+     * @param maxRows  the amount of pixel rows
+     * @param maxCols  the amount of pixel columns
+     * @param tileSize side of a tile in pixels
+     * @param workers  the amount of workers
+     * @param cost     the predictor of the cost of a pixel, or null for tiles in image order
+     * @throws IllegalArgumentException if the tile size or the amount of workers is not positive
+     */
+    TileScheduler(int maxRows, int maxCols, int tileSize, int workers, PixelCost cost) {
+        if (tileSize <= 0) throw new IllegalArgumentException("Tile size must be positive");
+        if (workers <= 0) throw new IllegalArgumentException("Amount of workers must be positive");
+        this.maxRows  = maxRows;
+        this.maxCols  = maxCols;
+        this.tileSize = tileSize;
+        tileCols      = (maxCols + tileSize - 1) / tileSize;
+        mortonSize    = Integer.highestOneBit(tileSize) == tileSize ? tileSize : Integer.highestOneBit(tileSize) << 1;
+        ranges        = new AtomicLongArray(workers);
+        this.cost     = cost;
+        int imageTiles = tileCols * ((maxRows + tileSize - 1) / tileSize);
+        if (cost == null) {
+            tiles     = imageTiles;
+            densities = null;
+            stride    = 1;
+            for (int worker = 0; worker < workers; ++worker)
+                ranges.set(worker, range((int) ((long) tiles * worker / workers),
+                        (int) ((long) tiles * (worker + 1) / workers)));
+            return;
+        }
+        densities = new double[imageTiles];
+        // a stride of about the golden ratio of the tiles scatters the first predictions over the image
+        int step = Math.max(1, (int) (imageTiles * 0.618));
+        while (gcd(step, imageTiles) != 1) ++step;
+        stride = step;
+    }
+
+    /**
+     * Runs a share of the pre-pass of the cost of the tiles, and waits until the tiles are
+     * dealt to the workers. Each worker predicts the image tiles it takes from a shared
+     * counter; the worker that predicts the last one deals the tiles. The tiles are taken
+     * in a scattered order, and the first tile of each worker is traced once before it is
+     * predicted, so that the tracing code runs warm when it is timed and the predictions
+     * that are still slowed down by the start of the JVM are not all in the same part of
+     * the image. Returns at once if the tiles are not ordered by cost, or are already dealt.
+     */
+    void predict() {
+        if (densities == null || dealt.isTerminated()) return;
+        try {
+            boolean cold = true;
+            int k;
+            while ((k = nextPrediction.getAndIncrement()) < densities.length) {
+                int tile = (int) ((long) k * stride % densities.length);
+                if (cold) {
+                    predictCost(tile, cost);
+                    cold = false;
+                }
+                densities[tile] = predictCost(tile, cost);
+                if (predicted.incrementAndGet() == densities.length) {
+                    deal();
+                    dealt.arriveAndDeregister();
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            // the workers that wait for the tiles find none
+            dealt.forceTermination();
+            throw e;
+        }
+        dealt.awaitAdvance(0);
+    }
+
+    /**
+     * Cuts the image tiles by their predicted cost, sorts them and deals them to the workers
+     */
+    private void deal() {
+        int imageTiles = densities.length, workers = ranges.length();
+        double total = 0;
+        for (int tile = 0; tile < imageTiles; ++tile) {
+            int col0 = tile % tileCols * tileSize, row0 = tile / tileCols * tileSize;
+            total += densities[tile] * Math.min(tileSize, maxCols - col0) * Math.min(tileSize, maxRows - row0);
+        }
+        // cut the expensive tiles into quarters, down to a pre-pass pixel per tile
+        List<long[]> parts = new ArrayList<>(); // cost, image tile, first code, end code
+        long target = Math.max(1, (long) (total / workers / TILES_PER_WORKER));
+        for (int tile = 0; tile < imageTiles; ++tile)
+            cut(parts, densities[tile], tile, 0, mortonSize * mortonSize, target);
+        parts.sort((a, b) -> Long.compare(b[0], a[0]));
+
+        // deal the tiles to the workers - the k-th tile to worker k % workers
+        tiles      = parts.size();
+        gridTiles  = new int[tiles];
+        firstCodes = new int[tiles];
+        endCodes   = new int[tiles];
+        int bottom = 0;
+        for (int worker = 0; worker < workers; ++worker) {
+            int top = bottom;
+            for (int k = worker; k < tiles; k += workers, ++top) {
+                long[] tile = parts.get(k);
+                gridTiles[top]  = (int) tile[1];
+                firstCodes[top] = (int) tile[2];
+                endCodes[top]   = (int) tile[3];
+            }
+            ranges.set(worker, range(bottom, top));
+            bottom = top;
+        }
+    }
+
+    /**
+     * Takes the next tile of a worker - from its own range, or stolen from another worker.
+     * The first call of a worker runs its share of the pre-pass, if there is one.
+     * @param worker the worker number
+     * @return the tile number, or -1 if no tiles are left
+     */
+    int nextTile(int worker) {
+        predict();
+        while (true) {
+            long range = ranges.get(worker);
+            int bottom = bottom(range), top = top(range);
+            if (bottom >= top) break;
+            if (ranges.compareAndSet(worker, range, range(bottom + 1, top))) return bottom;
+        }
+        // the own range is empty - only this worker may refill it, and thieves leave it alone
+        int workers = ranges.length();
+        for (int i = 1; i < workers; ++i) {
+            int victim = (worker + i) % workers;
+            while (true) {
+                long range = ranges.get(victim);
+                int bottom = bottom(range), top = top(range);
+                if (bottom >= top) break;
+                int middle = bottom + (top - bottom) / 2;
+                if (ranges.compareAndSet(victim, range, range(bottom, middle))) {
+                    // the victim keeps [bottom, middle), the thief takes [middle, top)
+                    ranges.set(worker, range(middle + 1, top));
+                    return middle;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the amount of tiles of the image - the tiles are numbered from 0. If the tiles
+     * are ordered by cost, the rest of the pre-pass runs on the calling thread first.
+     * @return the amount of tiles
+     */
+    int tiles() {
+        predict();
+        return tiles;
+    }
+
+    /**
+     * Applies an action on the pixels of a tile, in Morton order
+     * @param tile   the tile number
+     * @param action the action
+     */
+    void forEachPixel(int tile, PixelAction action) {
+        int first = 0, end = mortonSize * mortonSize;
+        if (gridTiles != null) {
+            first = firstCodes[tile];
+            end   = endCodes[tile];
+            tile  = gridTiles[tile];
+        }
+        int col0 = tile % tileCols * tileSize, row0 = tile / tileCols * tileSize;
+        int cols = Math.min(tileSize, maxCols - col0), rows = Math.min(tileSize, maxRows - row0);
+        for (int code = first; code < end; ++code) {
+            int col = compact(code), row = compact(code >>> 1);
+            if (col < cols && row < rows) action.apply(col0 + col, row0 + row);
+        }
+    }
+
+    /**
+     * Predicts the cost of a pixel of an image tile by the pixels of every {@link #PREPASS_STEP}
+     * columns and rows, starting in the middle of the first step (or of the tile, if
+     * it is smaller)
+     * @param tile the image tile number
+     * @param cost the predictor of the cost of a pixel
+     * @return the average predicted cost of a pixel of the tile
+     */
+    private double predictCost(int tile, PixelCost cost) {
+        int col0 = tile % tileCols * tileSize, row0 = tile / tileCols * tileSize;
+        int cols = Math.min(tileSize, maxCols - col0), rows = Math.min(tileSize, maxRows - row0);
+        long sum = 0, samples = 0;
+        for (int row = Math.min(PREPASS_STEP, rows) / 2; row < rows; row += PREPASS_STEP)
+            for (int col = Math.min(PREPASS_STEP, cols) / 2; col < cols; col += PREPASS_STEP, ++samples)
+                sum += cost.cost(col0 + col, row0 + row);
+        return (double) sum / samples;
+    }
+
+    /**
+     * Cuts a range of the Morton codes of an image tile into quarters, recursively, while
+     * the predicted cost of its parts is above the target and they contain more than a
+     * pixel of the pre-pass. The cost is assumed to be even over the pixels of the tile,
+     * and parts without pixels (out of the image or of a tile of a size that is not a
+     * power of 2) are dropped.
+     * @param tiles   the list of the tiles to add the parts to - cost, image tile, first code, end code
+     * @param density the predicted cost of a pixel of the tile
+     * @param tile    the image tile number
+     * @param first   the first Morton code of the range - a square of codes
+     * @param end     the Morton code after the last one of the range
+     * @param target  the predicted cost to cut down to
+     */
+    private void cut(List<long[]> tiles, double density, int tile, int first, int end, long target) {
+        int col0 = tile % tileCols * tileSize, row0 = tile / tileCols * tileSize;
+        int side = (int) Math.sqrt(end - first), col = compact(first), row = compact(first >>> 1);
+        long pixels = (long) Math.max(0, Math.min(side, Math.min(tileSize, maxCols - col0) - col))
+                * Math.max(0, Math.min(side, Math.min(tileSize, maxRows - row0) - row));
+        if (pixels == 0) return;
+        long cost = (long) (density * pixels);
+        int quarter = (end - first) / 4;
+        if (cost <= target || quarter < PREPASS_STEP * PREPASS_STEP) {
+            tiles.add(new long[] { cost, tile, first, end });
+            return;
+        }
+        for (int part = first; part < end; part += quarter)
+            cut(tiles, density, tile, part, part + quarter, target);
+    }
+
+    /**
+     * Calculates the greatest common divisor of two numbers
+     * @param a a positive number
+     * @param b a positive number
+     * @return the greatest common divisor
+     */
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int r = a % b;
+            a = b;
+            b = r;
+        }
+        return a;
+    }
+
+    /**
+     * Packs a range of tiles into a number
+     * @param bottom the first tile
+     * @param top    the tile after the last one
+     * @return the packed range
+     */
+    private static long range(int bottom, int top) {
+        return ((long) bottom << 32) | (top & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Unpacks the bottom of a range
+     * @param range the packed range
+     * @return the first tile
+     */
+    private static int bottom(long range) {
+        return (int) (range >>> 32);
+    }
+
+    /**
+     * Unpacks the top of a range
+     * @param range the packed range
+     * @return the tile after the last one
+     */
+    private static int top(long range) {
+        return (int) range;
+    }
+
+    /**
+     * Collects the even bits of a Morton code - the coordinate it interleaves from bit 0
+     * @param code the Morton code
+     * @return the coordinate
+     */
+    private static int compact(int code) {
+        code &= 0x55555555;
+        code = (code | (code >>> 1)) & 0x33333333;
+        code = (code | (code >>> 2)) & 0x0F0F0F0F;
+        code = (code | (code >>> 4)) & 0x00FF00FF;
+        return (code | (code >>> 8)) & 0x0000FFFF;
+    }
+}
@@ -3,6 +3,8 @@ package geometries;
 import org.junit.jupiter.api.Test;
 import primitives.*;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 class CylinderTest {
     
@@ -44,4 +46,75 @@ class CylinderTest {
         assertEquals(new Vector(1, 0, 0), cylinder.getNormal(new Point(4, 1, 0)),
                 "ERROR: The normal vector at the edge of the top base is incorrect. Expected the normal to be consistent with the base's orientation.");
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link geometries.Cylinder#getBoundingBox()}.
+     */
+    @Test
+    void testGetBoundingBox() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Cylinder along the X axis
+        BoundingBox box = new Cylinder(1, new Ray(Point.ZERO, new Vector(1, 0, 0)), 4).getBoundingBox();
+        assertEquals(0, box.minX, 1e-10, "Wrong minimal x of the cylinder box");
+        assertEquals(4, box.maxX, 1e-10, "Wrong maximal x of the cylinder box");
+        assertEquals(-1, box.minY, 1e-10, "Wrong minimal y of the cylinder box");
+        assertEquals(1, box.maxZ, 1e-10, "Wrong maximal z of the cylinder box");
+
+        // TC02: Tilted cylinder - the box must enclose both base disks
+        box = new Cylinder(1, new Ray(Point.ZERO, new Vector(1, 1, 0)), Math.sqrt(2)).getBoundingBox();
+        double e = Math.sqrt(0.5);
+        assertEquals(-e, box.minX, 1e-10, "Wrong minimal x of the tilted cylinder box");
+        assertEquals(1 + e, box.maxY, 1e-10, "Wrong maximal y of the tilted cylinder box");
+        assertEquals(-1, box.minZ, 1e-10, "Wrong minimal z of the tilted cylinder box");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: An infinite tube is unbounded
+        assertTrue(new Tube(1, new Ray(Point.ZERO, new Vector(1, 0, 0))).getBoundingBox().isInfinite(),
+                "A tube must have an infinite box");
+    }
+
+    /**
+     * Test method for {@link geometries.Cylinder#findIntersections(Ray)}.
+     */
+    @Test
+    void testFindIntersections() {
+        // A cylinder of radius 1 along the X axis, between x = 0 and x = 4
+        Cylinder cylinder = new Cylinder(1, new Ray(Point.ZERO, new Vector(1, 0, 0)), 4);
+        Vector x = new Vector(1, 0, 0);
+        Vector y = new Vector(0, 1, 0);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray crosses the side twice
+        assertEquals(List.of(new Point(2, -1, 0), new Point(2, 1, 0)),
+                cylinder.findIntersections(new Ray(new Point(2, -2, 0), y)), "Wrong intersections through the side");
+        // TC02: Ray crosses both bases
+        assertEquals(List.of(new Point(0, 0.5, 0), new Point(4, 0.5, 0)),
+                cylinder.findIntersections(new Ray(new Point(-1, 0.5, 0), x)), "Wrong intersections through the bases");
+        // TC03: Ray crosses a base and the side
+        assertEquals(List.of(new Point(0, 0.5, 0), new Point(0.5, 1, 0)),
+                cylinder.findIntersections(new Ray(new Point(-0.5, 0, 0), new Vector(1, 1, 0))),
+                "Wrong intersections through a base and the side");
+        // TC04: Ray crosses the tube beyond the top base
+        assertNull(cylinder.findIntersections(new Ray(new Point(5, -2, 0), y)),
+                "Ray beyond the cylinder must not intersect it");
+        // TC05: Ray starts inside the cylinder
+        assertEquals(List.of(new Point(2, 0, 1)),
+                cylinder.findIntersections(new Ray(new Point(2, 0, 0), new Vector(0, 0, 1))),
+                "Wrong intersection of a ray from inside the cylinder");
+        // TC06: The closest intersection and its normal on a base
+        Intersectable.Intersection closest = cylinder.calculateClosestIntersection(new Ray(new Point(-1, 0.5, 0), x));
+        assertEquals(new Point(0, 0.5, 0), closest.point, "Wrong closest intersection");
+        assertEquals(new Vector(-1, 0, 0), cylinder.getNormal(closest.point), "Wrong normal on the bottom base");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Ray in the plane of a base, through the edge of the base
+        assertNull(cylinder.findIntersections(new Ray(new Point(0, -2, 0), y)),
+                "Ray in the plane of a base must not intersect the cylinder");
+        // TC12: Ray along the axis
+        assertEquals(List.of(new Point(0, 0, 0), new Point(4, 0, 0)),
+                cylinder.findIntersections(new Ray(new Point(-1, 0, 0), x)), "Wrong intersections along the axis");
+        // TC13: Ray along the side
+        assertNull(cylinder.findIntersections(new Ray(new Point(-1, 1, 0), x)),
+                "Ray along the side must not intersect the cylinder");
+    }
+}
@@ -0,0 +1,126 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing DynamicGeometries
+ */
+class DynamicGeometriesTest {
+    /** A ray along the X axis */
+    private final Ray ray = new Ray(new Point(-10, 0, 0), new Vector(1, 0, 0));
+
+    /**
+     * Test method for {@link geometries.DynamicGeometries#update(DynamicGeometries.Handle, Transform)}.
+     */
+    @Test
+    void testUpdate() {
+        DynamicGeometries geometries = new DynamicGeometries();
+        DynamicGeometries.Handle moving = geometries.add(new Sphere(1, new Point(0, 0, 0)),
+                Transform.translation(new Vector(0, 5, 0)));
+        List<DynamicGeometries.Handle> spheres = new ArrayList<>();
+        for (int i = 1; i <= 20; ++i)
+            spheres.add(geometries.add(new Sphere(0.5, new Point(0, 0, 0)), Transform.translation(new Vector(i, 0, 0))));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the moved object is off the ray - the first small sphere is the closest
+        assertEquals(new Point(0.5, 0, 0), closest(geometries),
+                "wrong closest intersection before the update");
+        // TC02: the moved object is on the ray - it is the closest
+        geometries.update(moving, Transform.translation(new Vector(-5, 0, 0)));
+        assertEquals(new Point(-6, 0, 0), closest(geometries), "wrong closest intersection after the update");
+        assertEquals(42, geometries.findIntersections(ray).size(), "wrong amount of intersections");
+        // TC03: scaled and rotated object - the normal is moved to the scene
+        geometries.update(moving, Transform.scaling(1, 2, 1)
+                .then(Transform.rotation(new Vector(0, 0, 1), 90))
+                .then(Transform.translation(new Vector(-5, 0, 0))));
+        Intersectable.Intersection intersection = geometries.calculateClosestIntersection(ray);
+        assertEquals(new Point(-7, 0, 0), intersection.point, "wrong closest intersection of a scaled object");
+        assertEquals(new Vector(-1, 0, 0), intersection.n, "wrong normal of a scaled object");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: shuffling the objects degrades the tree until it is built again
+        int builds = geometries.getRebuildCount();
+        for (int i = 0; i < spheres.size(); ++i)
+            geometries.update(spheres.get(i), Transform.translation(new Vector(7 * i % 20 + 1, 0, 0)));
+        assertTrue(geometries.getRebuildCount() > builds, "a degraded tree must be built again");
+    }
+
+    /**
+     * Test method for {@link geometries.DynamicGeometries#remove(DynamicGeometries.Handle)}.
+     */
+    @Test
+    void testRemove() {
+        DynamicGeometries geometries = new DynamicGeometries();
+        List<DynamicGeometries.Handle> handles = new ArrayList<>();
+        for (int i = 1; i <= 10; ++i)
+            handles.add(geometries.add(new Sphere(0.5, new Point(i, 0, 0))));
+        DynamicGeometries.Handle plane = geometries.add(new Plane(new Point(20, 0, 0), new Vector(1, 0, 0)));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: removing the closest object reveals the one behind it
+        geometries.remove(handles.getFirst());
+        assertEquals(new Point(1.5, 0, 0), closest(geometries), "wrong closest intersection after removal");
+        // TC02: removing an unbounded object
+        geometries.remove(plane);
+        assertEquals(18, geometries.findIntersections(ray).size(), "wrong amount of intersections");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: removing all the objects
+        for (DynamicGeometries.Handle handle : handles.subList(1, handles.size())) geometries.remove(handle);
+        assertNull(geometries.calculateClosestIntersection(ray), "empty collection must have no intersection");
+        assertTrue(geometries.getBoundingBox().isEmpty(), "empty collection must have an empty box");
+        // TC11: removing an object twice
+        assertThrows(IllegalArgumentException.class, () -> geometries.remove(plane),
+                "removing an object twice must throw exception");
+        // TC12: a handle of another collection
+        DynamicGeometries.Handle other = new DynamicGeometries().add(new Sphere(1, new Point(0, 0, 0)));
+        assertThrows(IllegalArgumentException.class, () -> geometries.remove(other),
+                "removing an object of another collection must throw exception");
+    }
+
+    /**
+     * Test method for the changes of {@link geometries.DynamicGeometries} inside {@link geometries.Geometries}.
+     */
+    @Test
+    void testInGeometries() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the containing collection sees a moved object, with and without a hierarchy
+        for (int variant = 0; variant < 3; ++variant) {
+            DynamicGeometries dynamic = new DynamicGeometries();
+            DynamicGeometries.Handle moving = dynamic.add(new Sphere(1, new Point(0, 0, 0)),
+                    Transform.translation(new Vector(0, 10, 0)));
+            Geometries scene = new Geometries(dynamic, new Sphere(0.5, new Point(30, 5, 0)));
+            if (variant == 1) scene.buildBVH();
+            if (variant == 2) scene.flattenBVH();
+            assertNull(scene.calculateClosestIntersection(ray), "the ray must miss the scene before the update");
+            dynamic.update(moving, Transform.translation(new Vector(20, 0, 0)));
+            assertEquals(new Point(19, 0, 0), scene.calculateClosestIntersection(ray).point,
+                    "the containing collection must see the moved object");
+
+            // =============== Boundary Values Tests ==================
+            // TC10: the containing collection sees a removed object and an added one
+            dynamic.remove(moving);
+            assertNull(scene.calculateClosestIntersection(ray), "the containing collection must not see a removed object");
+            dynamic.add(new Sphere(1, new Point(5, 0, 0)));
+            assertEquals(new Point(4, 0, 0), scene.calculateClosestIntersection(ray).point,
+                    "the containing collection must see an added object");
+        }
+    }
+
+    /**
+     * Finds the closest intersection point of the test ray
+     * @param geometries the collection
+     * @return the point
+     */
+    private Point closest(DynamicGeometries geometries) {
+        Intersectable.Intersection intersection = geometries.calculateClosestIntersection(ray);
+        assertNotNull(intersection, "the ray must intersect the collection");
+        return intersection.point;
+    }
+}
@@ -51,4 +51,452 @@ public class GeometriesTest {
         assertEquals(4, pts3.size(), "Sphere, triangle, and plane together create 4 intersection points");
     }
 
+
+    /**
+     * Test method for {@link geometries.Geometries#buildBVH()}.
+     */
+    @Test
+    void testBuildBVH() {
+        // a row of 100 small spheres along the X axis and a plane behind them
+        Geometries row = new Geometries();
+        for (int i = 0; i < 100; ++i)
+            row.add(new Sphere(new Point(i * 3, 0, 0), 1));
+        row.add(new Plane(new Point(0, 0, -5), new Vector(0, 0, 1)));
+        Geometries linear = new Geometries();
+        for (int i = 0; i < 100; ++i)
+            linear.add(new Sphere(new Point(i * 3, 0, 0), 1));
+        linear.add(new Plane(new Point(0, 0, -5), new Vector(0, 0, 1)));
+        row.buildBVH();
+
+        // ============ Equivalence Partition Tests =============
+        // TC01: Closest intersection is the same as without the hierarchy
+        Ray ray = new Ray(new Point(150, 0, 10), new Vector(0, 0, -1));
+        assertEquals(new Point(150, 0, 1), row.calculateClosestIntersection(ray).point,
+                "Wrong closest intersection with a sphere in the hierarchy");
+        assertEquals(linear.calculateClosestIntersection(ray).point, row.calculateClosestIntersection(ray).point,
+                "The hierarchy changed the closest intersection");
+        // TC02: Ray between the spheres hits only the unbounded plane
+        ray = new Ray(new Point(151.5, 0, 10), new Vector(0, 0, -1));
+        assertEquals(new Point(151.5, 0, -5), row.calculateClosestIntersection(ray).point,
+                "Wrong closest intersection with the unbounded plane");
+        // TC03: Ray along the row - all the intersections are found
+        ray = new Ray(new Point(-10, 0, 0), new Vector(1, 0, 0));
+        assertEquals(200, row.findIntersections(ray).size(), "Wrong amount of intersections through the hierarchy");
+        // TC04: Statistics of the hierarchy
+        BoundingVolumeHierarchy.Statistics statistics = row.getBVHStatistics();
+        assertEquals(100, statistics.leafSizes().entrySet().stream().mapToInt(e -> e.getKey() * e.getValue()).sum(),
+                "All the bounded geometries must be in the leaves");
+        assertTrue(statistics.depth() < 20, "The hierarchy is not balanced");
+        assertTrue(statistics.sahCost() < 100, "The hierarchy must be cheaper than testing all the geometries");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Ray misses everything
+        assertNull(row.calculateClosestIntersection(new Ray(new Point(0, 10, 10), new Vector(0, 1, 0))),
+                "Ray that misses all the geometries must not find an intersection");
+        // TC12: Adding a geometry drops the hierarchy
+        row.add(new Sphere(new Point(0, 0, 100), 1));
+        assertNull(row.getBVHStatistics(), "Adding a geometry must invalidate the hierarchy");
+        // TC13: Empty collection
+        assertNull(new Geometries().buildBVH().calculateClosestIntersection(ray),
+                "Empty collection must not find an intersection");
+    }
+
+
+    /**
+     * Test method for {@link geometries.Geometries#getBoundingBox()}.
+     */
+    @Test
+    void testGetBoundingBox() {
+        Geometries furniture = new Geometries(new Sphere(1, new Point(10, 0, 0)));
+        Geometries room = new Geometries(furniture);
+
+        // ============ Equivalence Partition Tests =============
+        // TC01: The box of a group encloses its geometries
+        BoundingBox box = room.getBoundingBox();
+        assertEquals(9, box.minX, 1e-10, "Wrong minimal x of the group box");
+        assertEquals(1, box.maxY, 1e-10, "Wrong maximal y of the group box");
+        // TC02: A ray missing the box of the group finds nothing
+        assertNull(room.findIntersections(hitAllRay), "A ray missing the group box must not find intersections");
+        // TC03: Adding a geometry to a nested group updates the box of the containing group
+        furniture.add(sphere);
+        assertEquals(-1, room.getBoundingBox().minX, 1e-10, "The box of a group must follow its nested groups");
+        assertEquals(2, room.findIntersections(hitAllRay).size(), "Wrong intersections of the nested group");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A group with an unbounded geometry is unbounded
+        assertTrue(new Geometries(sphere, plane).getBoundingBox().isInfinite(), "A group with a plane must be unbounded");
+        // TC12: An empty group has an empty box
+        assertTrue(new Geometries().getBoundingBox().isEmpty(), "An empty group must have an empty box");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#buildBVH(int)}.
+     */
+    @Test
+    void testBuildBVHParallel() {
+        // a 3D lattice of 4000 small spheres - big enough to be split between tasks
+        Geometries lattice = new Geometries();
+        for (int i = 0; i < 20; ++i)
+            for (int j = 0; j < 20; ++j)
+                for (int k = 0; k < 10; ++k)
+                    lattice.add(new Sphere(new Point(i * 3, j * 3, k * 3), 1));
+
+        // ============ Equivalence Partition Tests =============
+        // TC01: The tree does not depend on the amount of threads
+        BoundingVolumeHierarchy.Statistics single = lattice.buildBVH(1).getBVHStatistics();
+        BoundingVolumeHierarchy.Statistics parallel = lattice.buildBVH(4).getBVHStatistics();
+        assertEquals(single.nodeCount(), parallel.nodeCount(), "Parallel build must produce the same tree");
+        assertEquals(single.depth(), parallel.depth(), "Parallel build must produce the same tree");
+        assertEquals(single.leafSizes(), parallel.leafSizes(), "Parallel build must produce the same tree");
+        assertEquals(single.sahCost(), parallel.sahCost(), 0, "Parallel build must produce the same tree");
+        assertEquals(4, parallel.threads(), "Wrong amount of threads in the statistics");
+        // TC02: Closest intersection through the binned tree
+        Ray ray = new Ray(new Point(30, 30, 100), new Vector(0, 0, -1));
+        assertEquals(new Point(30, 30, 28), lattice.calculateClosestIntersection(ray).point,
+                "Wrong closest intersection through the binned tree");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Geometries with the same center cannot be split by the heuristic
+        Geometries same = new Geometries();
+        for (int i = 0; i < 10; ++i) same.add(new Sphere(new Point(0, 0, 0), i + 1));
+        assertEquals(new Point(0, 0, -1), same.buildBVH(2).calculateClosestIntersection(hitAllRay).point,
+                "Wrong closest intersection of concentric spheres");
+        // TC12: Illegal amount of threads
+        assertThrows(IllegalArgumentException.class, () -> lattice.buildBVH(0),
+                "Building with no threads must throw an exception");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#buildLazyBVH()}.
+     */
+    @Test
+    void testBuildLazyBVH() throws InterruptedException {
+        // a 3D lattice of 4000 small spheres, the same lattice with a full hierarchy
+        Geometries lazy = new Geometries();
+        Geometries full = new Geometries();
+        for (int i = 0; i < 20; ++i)
+            for (int j = 0; j < 20; ++j)
+                for (int k = 0; k < 10; ++k) {
+                    lazy.add(new Sphere(new Point(i * 3, j * 3, k * 3), 1));
+                    full.add(new Sphere(new Point(i * 3, j * 3, k * 3), 1));
+                }
+        lazy.buildLazyBVH();
+        full.buildBVH(1);
+
+        // ============ Equivalence Partition Tests =============
+        // TC01: Only the root exists before the first ray
+        assertEquals(1, lazy.getBVHStatistics().nodeCount(), "Lazy hierarchy must not be split before a ray");
+        assertEquals(0, lazy.getBVHStatistics().threads(), "Wrong amount of threads of a lazy hierarchy");
+        // TC02: A single ray splits only the nodes on its way
+        Ray ray = new Ray(new Point(30, 30, 100), new Vector(0, 0, -1));
+        assertEquals(new Point(30, 30, 28), lazy.calculateClosestIntersection(ray).point,
+                "Wrong closest intersection through the lazy tree");
+        int split = lazy.getBVHStatistics().nodeCount();
+        assertTrue(split > 1 && split < full.getBVHStatistics().nodeCount() / 10,
+                "A single ray must split only a small part of the hierarchy");
+        // TC03: Threads splitting the same nodes find the same intersections as the full hierarchy
+        Ray[] rays = new Ray[400];
+        for (int i = 0; i < rays.length; ++i)
+            rays[i] = new Ray(new Point(i % 20 * 3 + 0.3, i / 20 * 3 - 0.2, 100), new Vector(0.001, 0.002, -1));
+        Point[][] found = new Point[4][rays.length];
+        Thread[] threads = new Thread[found.length];
+        for (int t = 0; t < threads.length; ++t) {
+            Point[] points = found[t];
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < rays.length; ++i) points[i] = lazy.calculateClosestIntersection(rays[i]).point;
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+        for (int i = 0; i < rays.length; ++i) {
+            Point expected = full.calculateClosestIntersection(rays[i]).point;
+            for (Point[] points : found) assertEquals(expected, points[i], "Wrong closest intersection of a thread");
+        }
+        // TC04: All the intersections through the lazy tree
+        ray = new Ray(new Point(-10, 0, 0), new Vector(1, 0, 0));
+        assertEquals(40, lazy.findIntersections(ray).size(), "Wrong amount of intersections through the lazy tree");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Empty collection
+        assertNull(new Geometries().buildLazyBVH().calculateClosestIntersection(ray),
+                "Empty collection must not find an intersection");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#flattenBVH()}.
+     */
+    @Test
+    void testFlattenBVH() {
+        // random small triangles, some of them axis aligned, and a plane behind them
+        java.util.Random random = new java.util.Random(7);
+        Geometries flat = new Geometries();
+        Geometries linear = new Geometries();
+        for (int i = 0; i < 2000; ++i) {
+            Point p = new Point(random.nextInt(100), random.nextInt(100), random.nextInt(100));
+            Triangle t = i % 2 == 0
+                    ? new Triangle(p, p.add(new Vector(2, 0, 0)), p.add(new Vector(0, 2, 0)))
+                    : new Triangle(p, p.add(new Vector(2, 1, 0.5)), p.add(new Vector(0.3, 2, 1)));
+            flat.add(t);
+            linear.add(t);
+        }
+        flat.add(plane);
+        linear.add(plane);
+        flat.flattenBVH();
+
+        // ============ Equivalence Partition Tests =============
+        // TC01: Rays in all directions find the same closest intersections as without the hierarchy
+        for (int i = 0; i < 200; ++i) {
+            Ray ray = new Ray(new Point(50, 50, -20),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, random.nextDouble() - 0.5));
+            Intersectable.Intersection expected = linear.calculateClosestIntersection(ray);
+            Intersectable.Intersection actual = flat.calculateClosestIntersection(ray);
+            assertEquals(expected == null ? null : expected.point, actual == null ? null : actual.point,
+                    "The flat hierarchy changed the closest intersection");
+        }
+        // TC02: The statistics of the flattened hierarchy are kept
+        assertNotNull(flat.getBVHStatistics(), "A flattened hierarchy must keep its statistics");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Rays parallel to the axes, along the corners of axis aligned triangles
+        for (int i = 0; i < 100; ++i) {
+            Ray ray = new Ray(new Point(random.nextInt(100), random.nextInt(100), -20), new Vector(0, 0, 1));
+            assertEquals(linear.findIntersections(ray).size(), flat.findIntersections(ray).size(),
+                    "The flat hierarchy changed the intersections of an axis parallel ray");
+        }
+        // TC12: A lazy hierarchy is split completely when it is flattened
+        Geometries lazy = new Geometries(flat.getGeometries().toArray(new Intersectable[0]));
+        lazy.buildLazyBVH().flattenBVH();
+        Ray ray = new Ray(new Point(50, 50, -20), new Vector(0.1, 0.2, 1));
+        assertEquals(linear.calculateClosestIntersection(ray).point, lazy.calculateClosestIntersection(ray).point,
+                "Wrong closest intersection through a flattened lazy hierarchy");
+        // TC13: Empty collection
+        assertNull(new Geometries().flattenBVH().calculateClosestIntersection(ray),
+                "Empty collection must not find an intersection");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#calculateClosestIntersections(List)}.
+     */
+    @Test
+    void testCalculateClosestIntersections() {
+        // a 3D lattice of small spheres with a plane behind it
+        Geometries lattice = new Geometries();
+        for (int i = 0; i < 20; ++i)
+            for (int j = 0; j < 20; ++j)
+                for (int k = 0; k < 5; ++k)
+                    lattice.add(new Sphere(new Point(i * 3, j * 3, k * 3), 1));
+        lattice.add(new Plane(new Point(0, 0, -10), new Vector(0, 0, 1)));
+        lattice.buildBVH();
+
+        // ============ Equivalence Partition Tests =============
+        // TC01: A beam of 9x9 nearly parallel rays from a common head finds the same intersections as single rays
+        assertBeam(lattice, new Point(20, 25, 100), new Vector(0.1, -0.05, -1), 0.02);
+        // TC02: A wide beam through many nodes
+        assertBeam(lattice, new Point(30, 30, 100), new Vector(0, 0.01, -1), 0.3);
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Rays that go to both sides along an axis
+        assertBeam(lattice, new Point(30, 30, 100), new Vector(0, 0, -1), 0.01);
+        // TC12: A beam that misses the lattice hits only the plane
+        Intersectable.Intersection[] hits = assertBeam(lattice, new Point(-50, -50, 100), new Vector(0, 0, -1), 0.01);
+        for (Intersectable.Intersection hit : hits) assertEquals(-10, hit.point.getZ(), 1e-9, "Beam must hit the plane");
+        // TC13: A collection without a hierarchy
+        assertBeam(new Geometries(sphere, triangle), new Point(0, 0, -5), new Vector(0, 0, 1), 0.1);
+        // TC14: A flattened hierarchy, with beams that hit, cross many nodes, split along an axis and miss
+        Geometries flat = new Geometries(lattice.getGeometries().toArray(new Intersectable[0])).flattenBVH();
+        assertBeam(flat, new Point(20, 25, 100), new Vector(0.1, -0.05, -1), 0.02);
+        assertBeam(flat, new Point(30, 30, 100), new Vector(0, 0.01, -1), 0.3);
+        assertBeam(flat, new Point(30, 30, 100), new Vector(0, 0, -1), 0.01);
+        hits = assertBeam(flat, new Point(-50, -50, 100), new Vector(0, 0, -1), 0.01);
+        for (Intersectable.Intersection hit : hits) assertEquals(-10, hit.point.getZ(), 1e-9, "Beam must hit the plane");
+    }
+
+    /**
+     * Checks that a beam of 9x9 rays around a direction finds the same closest intersections as single rays
+     * @param geometries the geometries
+     * @param head       the common head of the rays
+     * @param direction  the central direction
+     * @param spread     the spread of the direction components
+     * @return the intersections of the beam
+     */
+    private Intersectable.Intersection[] assertBeam(Geometries geometries, Point head, Vector direction,
+                                                    double spread) {
+        List<Ray> beam = new java.util.ArrayList<>();
+        for (int i = -4; i <= 4; ++i)
+            for (int j = -4; j <= 4; ++j)
+                beam.add(new Ray(head, direction.add(new Vector(i * spread / 4 + 1e-12, j * spread / 4, 0))));
+        Intersectable.Intersection[] hits = geometries.calculateClosestIntersections(beam);
+        assertEquals(beam.size(), hits.length, "Wrong amount of results of a beam");
+        for (int i = 0; i < beam.size(); ++i) {
+            Intersectable.Intersection expected = geometries.calculateClosestIntersection(beam.get(i));
+            assertEquals(expected == null ? null : expected.point, hits[i] == null ? null : hits[i].point,
+                    "The beam changed the closest intersection of a ray");
+        }
+        return hits;
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#calculateClosestIntersection(Ray, double, double)}.
+     */
+    @Test
+    void testCalculateClosestIntersectionInterval() {
+        // spheres along the ray, hit at the distances 4, 6, 9, 11, 14 and 16
+        Intersectable[] spheres = {
+                new Sphere(new Point(0, 0, 0), 1), new Sphere(new Point(0, 0, 5), 1), new Sphere(new Point(0, 0, 10), 1) };
+        Geometries plain = new Geometries(spheres);
+        Geometries tree = new Geometries(spheres).buildBVH();
+        Geometries flat = new Geometries(spheres).flattenBVH();
+        Ray ray = new Ray(new Point(0, 0, -5), new Vector(0, 0, 1));
+
+        for (Geometries geometries : List.of(plain, tree, flat)) {
+            // ============ Equivalence Partition Tests =============
+            // TC01: The nearest hit inside the interval
+            assertEquals(new Point(0, 0, 4), geometries.calculateClosestIntersection(ray, 6, 14).point,
+                    "Wrong closest intersection in the interval");
+            // TC02: No hit inside the interval
+            assertNull(geometries.calculateClosestIntersection(ray, 11, 14), "There is no hit in the interval");
+
+            // =============== Boundary Values Tests ==================
+            // TC11: A hit at the minimal distance is excluded
+            assertEquals(new Point(0, 0, 1), geometries.calculateClosestIntersection(ray, 4, 20).point,
+                    "A hit at the minimal distance must be excluded");
+            // TC12: A hit at the maximal distance is excluded
+            assertNull(geometries.calculateClosestIntersection(ray, 0, 4),
+                    "A hit at the maximal distance must be excluded");
+        }
+
+        // TC13: The interval is measured along the ray in the scene for a scaled instance (hits at 8, 12, 18, ...)
+        Instance instance = new Instance(tree, Transform.scaling(2));
+        Ray scaled = new Ray(new Point(0, 0, -10), new Vector(0, 0, 1));
+        Intersectable.Intersection intersection = instance.calculateClosestIntersection(scaled, 12, 20);
+        assertEquals(new Point(0, 0, 8), intersection.point, "Wrong closest intersection of a scaled instance");
+        assertEquals(new Vector(0, 0, -1), intersection.n, "Wrong normal of a scaled instance");
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#calculateTransmittance(Ray, double, Double3, double)}
+     * and {@link geometries.Intersectable#isOccluded(Ray, double, double)}.
+     */
+    @Test
+    void testCalculateTransmittance() {
+        // a half transparent triangle, a half transparent sphere and an opaque triangle along the ray,
+        // hit at the distances 5, 9, 11 and 15
+        Intersectable[] blockers = {
+                new Triangle(new Point(-1, -1, 0), new Point(1, -1, 0), new Point(0, 1, 0))
+                        .setMaterial(new Material().setKt(0.5)),
+                new Sphere(new Point(0, 0, 5), 1).setMaterial(new Material().setKt(0.5)),
+                new Triangle(new Point(-1, -1, 10), new Point(1, -1, 10), new Point(0, 1, 10)) };
+        Geometries plain = new Geometries(blockers);
+        Geometries tree = new Geometries(blockers).buildBVH();
+        Geometries flat = new Geometries(blockers).flattenBVH();
+        Instance instance = new Instance(new Geometries(blockers), Transform.scaling(2));
+        Ray ray = new Ray(new Point(0, 0, -5), new Vector(0, 0, 1));
+        Ray scaled = new Ray(new Point(0, 0, -10), new Vector(0, 0, 1));
+
+        for (Intersectable geometries : List.of(plain, tree, flat)) {
+            // ============ Equivalence Partition Tests =============
+            // TC01: Only the transparent geometries are before the light
+            assertEquals(new Double3(0.125), geometries.calculateTransmittance(ray, 12, Double3.ONE, 0.001),
+                    "Wrong transmittance through two intersections of a sphere");
+            assertFalse(geometries.isOccluded(ray, 12, 0.001), "Transparent geometries must not occlude");
+            // TC02: An opaque geometry is before the light
+            assertSame(Double3.ZERO, geometries.calculateTransmittance(ray, 20, Double3.ONE, 0.001),
+                    "An opaque geometry must stop the light");
+            assertTrue(geometries.isOccluded(ray, 20, 0.001), "An opaque geometry must occlude");
+            // TC03: The product falls below the minimum before the opaque geometry
+            assertSame(Double3.ZERO, geometries.calculateTransmittance(ray, 12, Double3.ONE, 0.2),
+                    "The transmittance must stop below the minimum");
+
+            // =============== Boundary Values Tests ==================
+            // TC11: A geometry at the distance of the light does not block it
+            assertFalse(geometries.isOccluded(ray, 15, 0.001), "A geometry at the light must not occlude");
+            assertEquals(new Double3(0.5), geometries.calculateTransmittance(ray, 9, Double3.ONE, 0.001),
+                    "A geometry at the light must not be counted");
+        }
+
+        // TC12: The distance to the light is measured in the scene for a scaled instance (hits at 10, 18, 22, 30)
+        assertEquals(new Double3(0.5), instance.calculateTransmittance(scaled, 18, Double3.ONE, 0.001),
+                "Wrong transmittance through a scaled instance");
+        assertFalse(instance.isOccluded(scaled, 30, 0.001), "Wrong occlusion by a scaled instance");
+        assertTrue(instance.isOccluded(scaled, 31, 0.001), "Wrong occlusion by a scaled instance");
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#isOpaque(double)}.
+     */
+    @Test
+    void testIsOpaque() {
+        Geometry glass = new Sphere(new Point(0, 0, 5), 1).setMaterial(new Material().setKt(0.5));
+        DynamicGeometries dynamic = new DynamicGeometries();
+        dynamic.add(new Sphere(1, new Point(0, 0, 0)));
+        dynamic.add(new Plane(new Point(0, 0, -1), new Vector(0, 0, 1)));
+
+        // ============ Equivalence Partition Tests =============
+        // TC01: Opaque geometries, collections and instances
+        assertTrue(sphere.isOpaque(0.001), "A geometry without transparency must be opaque");
+        assertTrue(new Geometries(sphere, triangle, plane).isOpaque(0.001), "Opaque geometries must be opaque");
+        assertTrue(new Instance(new Geometries(sphere), Transform.scaling(2)).isOpaque(0.001),
+                "An instance of opaque geometries must be opaque");
+        assertTrue(dynamic.isOpaque(0.001), "Opaque dynamic geometries must be opaque");
+        // TC02: A transparent geometry anywhere in the collection
+        assertFalse(glass.isOpaque(0.001), "A transparent geometry must not be opaque");
+        assertFalse(new Geometries(sphere, new Geometries(triangle, glass)).isOpaque(0.001),
+                "A collection containing a transparent geometry must not be opaque");
+        assertFalse(new Instance(new Geometries(glass), Transform.scaling(2)).isOpaque(0.001),
+                "An instance of a transparent geometry must not be opaque");
+        dynamic.add(glass, Transform.scaling(2));
+        assertFalse(dynamic.isOpaque(0.001), "Dynamic geometries with a transparent one must not be opaque");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: An empty collection blocks nothing
+        assertTrue(new Geometries().isOpaque(0.001), "An empty collection must be opaque");
+        // TC12: A transparency below the minimum
+        assertTrue(glass.isOpaque(0.6), "A transparency below the minimum must be opaque");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#calculateClosestIntersection(Ray)} with unbounded geometries.
+     */
+    @Test
+    void testUnboundedGeometries() {
+        // spheres above a ground plane, counting the rays that reach them
+        int[] tested = { 0 };
+        Geometries geometries = new Geometries(new Plane(new Point(0, 0, 0), new Vector(0, 0, 1)));
+        for (int i = 0; i < 5; ++i)
+            geometries.add(new Sphere(new Point(3 * i, 0, 5), 1) {
+                @Override
+                public boolean calculateClosestHit(Ray ray, double tMin, Hit hit) {
+                    ++tested[0];
+                    return super.calculateClosestHit(ray, tMin, hit);
+                }
+            });
+
+        // ============ Equivalence Partition Tests =============
+        // TC01: A ray to a sphere over the plane
+        assertEquals(new Point(6, 0, 6),
+                geometries.calculateClosestIntersection(new Ray(new Point(6, 0, 10), new Vector(0, 0, -1))).point,
+                "Wrong intersection with a sphere above the plane");
+        assertEquals(5, tested[0], "The spheres must be tested when their box is reached");
+        // TC02: A ray that hits the plane away from the spheres does not test them
+        tested[0] = 0;
+        assertEquals(new Point(6, 20, 0),
+                geometries.calculateClosestIntersection(new Ray(new Point(6, 20, 10), new Vector(0, 0, -1))).point,
+                "Wrong intersection with the plane");
+        assertEquals(0, tested[0], "The spheres must be culled by their box");
+        // TC03: A ray that hits the plane before the box of the spheres does not test them
+        assertEquals(new Point(0, 0, 0),
+                geometries.calculateClosestIntersection(new Ray(new Point(0, 0, 1), new Vector(0, 0, -1))).point,
+                "Wrong intersection with the plane");
+        assertEquals(0, tested[0], "The spheres behind the plane hit must be culled");
+        assertEquals(3, geometries.findIntersections(new Ray(new Point(6, 5, 10), new Vector(0, -1, -1))).size(),
+                "Wrong intersections with the plane and a sphere");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Only unbounded geometries
+        Geometries plane = new Geometries(new Plane(new Point(0, 0, 0), new Vector(0, 0, 1)));
+        assertEquals(new Point(1, 1, 0),
+                plane.calculateClosestIntersection(new Ray(new Point(1, 1, 1), new Vector(0, 0, -1))).point,
+                "Wrong intersection with a collection of an unbounded geometry");
+        assertTrue(plane.getBoundingBox().isInfinite(), "A collection with an unbounded geometry is unbounded");
+    }
 }
@@ -0,0 +1,107 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing Instance
+ */
+class InstanceTest {
+    /** A prototype of two triangles and a sphere around the origin */
+    private final Geometries prototype = new Geometries(
+            new Triangle(new Point(-1, -1, 0), new Point(1, -1, 0), new Point(0, 1, 0)),
+            new Triangle(new Point(-1, -1, 1), new Point(1, -1, 1), new Point(0, 1, 1)),
+            new Sphere(0.5, new Point(0, 0, 2)));
+
+    /**
+     * Test method for {@link geometries.Instance#calculateClosestIntersection(Ray)}.
+     */
+    @Test
+    void testCalculateClosestIntersection() {
+        // a row of rotated and scaled copies of the prototype, and the same copies built explicitly
+        Geometries instances = new Geometries();
+        Geometries copies = new Geometries();
+        for (int i = 0; i < 10; ++i) {
+            Transform t = Transform.rotation(new Vector(0, 0, 1), 20 * i)
+                    .then(Transform.scaling(1 + i / 10d))
+                    .then(Transform.translation(new Vector(5 * i, 0, 1)));
+            instances.add(new Instance(prototype, t));
+            copies.add(new Triangle(t.applyToPoint(new Point(-1, -1, 0)), t.applyToPoint(new Point(1, -1, 0)),
+                            t.applyToPoint(new Point(0, 1, 0))),
+                    new Triangle(t.applyToPoint(new Point(-1, -1, 1)), t.applyToPoint(new Point(1, -1, 1)),
+                            t.applyToPoint(new Point(0, 1, 1))));
+        }
+        instances.buildBVH();
+
+        // ============ Equivalence Partition Tests =============
+        // TC01: Rays through the copies hit the same triangles as the explicit copies
+        for (int i = 0; i < 10; ++i) {
+            Ray ray = new Ray(new Point(5 * i + 0.1, 0.1, -10), new Vector(0.01, 0, 1));
+            Intersectable.Intersection expected = copies.calculateClosestIntersection(ray);
+            Intersectable.Intersection actual = instances.calculateClosestIntersection(ray);
+            assertEquals(expected.point, actual.point, "Wrong closest intersection of copy " + i);
+            assertEquals(expected.geometry.getNormal(expected.point).dotProduct(actual.n), 1, 1e-9,
+                    "Wrong normal of copy " + i);
+        }
+        // TC02: All the intersections of a ray through the sphere of the first copy
+        Ray ray = new Ray(new Point(0, 0, -10), new Vector(0, 0, 1));
+        assertEquals(4, instances.findIntersections(ray).size(), "Wrong amount of intersections of a copy");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Ray between the copies misses them all
+        assertNull(instances.calculateClosestIntersection(new Ray(new Point(2.5, 0, -10), new Vector(0, 0, 1))),
+                "Ray between the copies must not find an intersection");
+        // TC12: The prototype hierarchy is built once and shared
+        assertNotNull(prototype.getBVHStatistics(), "The prototype hierarchy must be built by the instances");
+    }
+
+    /**
+     * Test method for the change of the prototype of {@link geometries.Instance}.
+     */
+    @Test
+    void testPrototypeChange() {
+        // a copy moved by 10 along x, in a scene with a hierarchy, a flat hierarchy and none, and a ray
+        // below the box of the copy
+        Instance instance = new Instance(prototype, Transform.translation(new Vector(10, 0, 0)));
+        Geometries tree = new Geometries(instance).buildBVH();
+        Geometries flat = new Geometries(new Geometries(instance)).flattenBVH();
+        Geometries plain = new Geometries(instance);
+        Ray ray = new Ray(new Point(10, -10, -3), new Vector(0, 1, 0));
+        for (Geometries scene : new Geometries[] { tree, flat, plain })
+            assertNull(scene.calculateClosestIntersection(ray), "The ray must miss the prototype before the change");
+        int version = tree.getVersion();
+        prototype.add(new Sphere(1, new Point(0, 0, -3)));
+
+        // ============ Equivalence Partition Tests =============
+        // TC01: A geometry added to the prototype is found through the collections that contain the instance
+        assertEquals(new Point(10, -1, -3), instance.calculateClosestIntersection(ray).point,
+                "Wrong intersection of the changed instance");
+        for (Geometries scene : new Geometries[] { tree, flat, plain })
+            assertEquals(new Point(10, -1, -3), scene.calculateClosestIntersection(ray).point,
+                    "A geometry added to the prototype must be found through the scene");
+        assertNotEquals(version, tree.getVersion(), "The version of the scene must change with the prototype");
+        // TC02: The hierarchy of the prototype is built again for its instances
+        assertNotNull(prototype.getBVHStatistics(), "The prototype hierarchy must be built again");
+    }
+
+    /**
+     * Test method for {@link geometries.Instance#getBoundingBox()}.
+     */
+    @Test
+    void testGetBoundingBox() {
+        // ============ Equivalence Partition Tests =============
+        // TC01: The box of a translated and scaled copy
+        BoundingBox box = new Instance(prototype,
+                Transform.scaling(2).then(Transform.translation(new Vector(10, 0, 0)))).getBoundingBox();
+        assertEquals(8, box.minX, 1e-10, "Wrong minimal x of the instance box");
+        assertEquals(5, box.maxZ, 1e-10, "Wrong maximal z of the instance box");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: An unbounded prototype gives an unbounded instance
+        Geometries plane = new Geometries(new Plane(new Point(0, 0, 0), new Vector(0, 0, 1)));
+        assertTrue(new Instance(plane, Transform.rotation(new Vector(1, 0, 0), 45)).getBoundingBox().isInfinite(),
+                "An instance of an unbounded prototype must be unbounded");
+    }
+}
@@ -139,6 +139,13 @@ class PlaneTest {
         ray = new Ray(new Point(2,2,2), new Vector(1, 1, 0));
         assertNull(plane.findIntersections(ray), "Ray should not intersect the plane");
 
+        //Group 4: Normal that is not a unit vector
+        // TC10: Plane from a point and a long normal
+        ray = new Ray(new Point(1, 1, 0), new Vector(0, 0, 1));
+        assertEquals(List.of(new Point(1, 1, 3)),
+                new Plane(new Point(0, 0, 3), new Vector(0, 0, 5)).findIntersections(ray),
+                "Wrong intersection with a plane given by a long normal");
+
     }
 
 }
@@ -84,4 +84,61 @@ class PolygonTests {
          assertEquals(0d, result.dotProduct(pts[i].subtract(pts[i == 0 ? 3 : i - 1])), DELTA,
                       "Polygon's normal is not orthogonal to one of the edges");
    }
+
+   /** Test method for {@link geometries.Polygon#findIntersections(primitives.Ray)}. */
+   @Test
+   void testFindIntersections() {
+      // a square in the plane z = 1
+      Polygon square = new Polygon(new Point(0, 0, 1), new Point(2, 0, 1), new Point(2, 2, 1), new Point(0, 2, 1));
+      Vector down = new Vector(0, 0, -1);
+      // a regular polygon of 64 vertices with the radius 1 around (0,0,5), in the plane x = y
+      // (its largest projection is not on the xy plane), ordered clockwise in the projection
+      int n = 64;
+      Point[] circle = new Point[n];
+      for (int i = 0; i < n; ++i) {
+         double angle = -2 * Math.PI * i / n;
+         circle[i] = new Point(Math.cos(angle) / Math.sqrt(2), Math.cos(angle) / Math.sqrt(2), 5 + Math.sin(angle));
+      }
+      Polygon round = new Polygon(circle);
+      Vector across = new Vector(1, -1, 0);
+
+      // ============ Equivalence Partitions Tests ==============
+      // TC01: Inside the polygon
+      assertEquals(1, square.findIntersections(new Ray(new Point(1, 0.5, 2), down)).size(),
+                   "Ray through the polygon must intersect it");
+      // TC02: Outside against an edge
+      assertNull(square.findIntersections(new Ray(new Point(3, 1, 2), down)), "Ray outside against an edge");
+      // TC03: Outside against a vertex
+      assertNull(square.findIntersections(new Ray(new Point(3, 3, 2), down)), "Ray outside against a vertex");
+      // TC04: Many vertices - inside and outside in all the directions around the center
+      for (int i = 0; i < 360; i += 7) {
+         double angle = Math.toRadians(i);
+         double d = Math.cos(angle) / Math.sqrt(2);
+         Point inside = new Point(d * 0.9, d * 0.9, 5 + Math.sin(angle) * 0.9).add(across.scale(-1));
+         assertEquals(1, round.findIntersections(new Ray(inside, across)).size(),
+                      "Ray through the polygon must intersect it");
+         Point outside = new Point(d * 1.1, d * 1.1, 5 + Math.sin(angle) * 1.1).add(across.scale(-1));
+         assertNull(round.findIntersections(new Ray(outside, across)), "Ray outside the polygon");
+      }
+      // TC05: A polygon of 3 vertices - inside and outside
+      Polygon three = new Polygon(new Point(0, 0, 1), new Point(2, 0, 1), new Point(0, 2, 1));
+      assertEquals(1, three.findIntersections(new Ray(new Point(0.5, 0.5, 2), down)).size(),
+                   "Ray through a polygon of 3 vertices must intersect it");
+      assertNull(three.findIntersections(new Ray(new Point(1.5, 1.5, 2), down)), "Ray outside a polygon of 3 vertices");
+
+      // =============== Boundary Values Tests ==================
+      // TC10: On an edge
+      assertNull(square.findIntersections(new Ray(new Point(1, 0, 2), down)), "Ray on an edge");
+      // TC11: On a vertex
+      assertNull(square.findIntersections(new Ray(new Point(2, 2, 2), down)), "Ray on a vertex");
+      // TC12: On the continuation of an edge
+      assertNull(square.findIntersections(new Ray(new Point(3, 0, 2), down)), "Ray on an edge's continuation");
+      // TC13: On a vertex and on an edge of a polygon with many vertices
+      assertNull(round.findIntersections(new Ray(circle[17].add(across.scale(-1)), across)),
+                 "Ray on a vertex");
+      Point middle = new Point((circle[40].getX() + circle[41].getX()) / 2,
+                               (circle[40].getY() + circle[41].getY()) / 2,
+                               (circle[40].getZ() + circle[41].getZ()) / 2);
+      assertNull(round.findIntersections(new Ray(middle.add(across.scale(-1)), across)), "Ray on an edge");
+   }
 }
@@ -5,6 +5,8 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 import primitives.*;
 
+import java.util.List;
+
 /** Testing Tubes*/
 class TubeTest {
 
@@ -31,4 +33,43 @@ class TubeTest {
         assertEquals(1, tube.getNormal(point1).length(), 0.00001, "Tube normal length is not 1");
         assertEquals(1, tube.getNormal(point2).length(), 0.00001, "Tube normal length at boundary is not 1");
     }
-}
\ No newline at end of file
+
+    /** Test method for {@link geometries.Tube#findIntersections(primitives.Ray)}. */
+    @Test
+    public void testFindIntersections() {
+        // A tube of radius 1 along the Y-axis
+        Tube tube = new Tube(1, new Ray(new Point(0, 0, 0), new Vector(0, 1, 0)));
+        Vector x = new Vector(1, 0, 0);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray misses the tube
+        assertNull(tube.findIntersections(new Ray(new Point(3, 0, 0), new Vector(0, 0, 1))),
+                "Ray outside the tube must not intersect it");
+        // TC02: Ray crosses the tube (2 points)
+        assertEquals(List.of(new Point(-1, 0.5, 0), new Point(1, 0.5, 0)),
+                tube.findIntersections(new Ray(new Point(-2, 0.5, 0), x)), "Wrong intersections of a crossing ray");
+        // TC03: Ray starts inside the tube (1 point)
+        assertEquals(List.of(new Point(1, 0.5, 0)), tube.findIntersections(new Ray(new Point(0, 0.5, 0), x)),
+                "Wrong intersection of a ray from inside the tube");
+        // TC04: Ray starts after the tube (0 points)
+        assertNull(tube.findIntersections(new Ray(new Point(2, 0, 0), x)), "Ray after the tube must not intersect it");
+        // TC05: Ray oblique to the axis (2 points)
+        assertEquals(List.of(new Point(-1, -1, 0), new Point(1, 1, 0)),
+                tube.findIntersections(new Ray(new Point(-2, -2, 0), new Vector(1, 1, 0))),
+                "Wrong intersections of an oblique ray");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Ray parallel to the axis inside the tube
+        assertNull(tube.findIntersections(new Ray(new Point(0.5, 0, 0), new Vector(0, 1, 0))),
+                "Ray parallel to the axis must not intersect the tube");
+        // TC12: Ray tangent to the tube
+        assertNull(tube.findIntersections(new Ray(new Point(-2, 0, 1), x)), "Tangent ray must not intersect the tube");
+        // TC13: Ray starts on the tube and goes outside
+        assertNull(tube.findIntersections(new Ray(new Point(1, 0, 0), x)),
+                "Ray from the surface outwards must not intersect the tube");
+        // TC14: Ray starts on the tube and goes inside (1 point)
+        assertEquals(List.of(new Point(-1, 0, 0)),
+                tube.findIntersections(new Ray(new Point(1, 0, 0), new Vector(-1, 0, 0))),
+                "Wrong intersection of a ray from the surface inwards");
+    }
+}
@@ -6,6 +6,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class RayTest {
     /**
@@ -41,4 +42,43 @@ public class RayTest {
         expectedClosestPoint = new Point(1, 2, 4);
         assertEquals(expectedClosestPoint, ray.findClosestPoint(points));
     }
+
+    /**
+     * Test method for {@link primitives.Ray#getSigns()} and the inverse direction.
+     */
+    @Test
+    public void testInverseDirection() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: direction with positive and negative components
+        Ray ray = new Ray(new Point(0, 0, 0), new Vector(1, -2, 2));
+        assertEquals(3, ray.getInverseX(), 1e-10, "wrong inverse of x");
+        assertEquals(-1.5, ray.getInverseY(), 1e-10, "wrong inverse of y");
+        assertEquals(0b010, ray.getSigns(), "wrong sign bits");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: zero components have infinite inverses, a negative zero is negative
+        ray = new Ray(new Point(0, 0, 0), new Vector(-0.0, 0, -1));
+        assertEquals(Double.NEGATIVE_INFINITY, ray.getInverseX(), "wrong inverse of negative zero");
+        assertEquals(Double.POSITIVE_INFINITY, ray.getInverseY(), "wrong inverse of zero");
+        assertEquals(0b101, ray.getSigns(), "wrong sign bits");
+    }
+
+    /**
+     * Test method for {@link primitives.Ray#Ray(Point, Vector)} and {@link primitives.Ray#Ray(Point, Vector, Vector)}.
+     */
+    @Test
+    public void testConstructor() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a direction is normalized
+        Ray ray = new Ray(new Point(1, 2, 3), new Vector(0, 3, 4));
+        assertEquals(new Vector(0, 0.6, 0.8), ray.getDirection(), "wrong normalized direction");
+        // TC02: a head on a surface is moved off it to the side of the direction
+        ray = new Ray(new Point(1, 2, 3), new Vector(0, 0, -1), new Vector(0, 0, 1));
+        assertEquals(new Point(1, 2, 2.9), ray.getHead(), "wrong head moved off the surface");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: a normalized direction is not normalized again
+        Vector direction = new Vector(1, 2, 3).normalize();
+        assertSame(direction, new Ray(new Point(1, 2, 3), direction).getDirection(), "a unit direction must be kept");
+    }
 }
@@ -0,0 +1,60 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing Transform
+ */
+class TransformTest {
+    /** Test method for {@link primitives.Transform#applyToPoint(Point)}. */
+    @Test
+    void testApplyToPoint() {
+        Point p = new Point(1, 2, 3);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: translation
+        assertEquals(new Point(2, 1, 3), Transform.translation(new Vector(1, -1, 0)).applyToPoint(p),
+                "translation wrong result");
+        // TC02: scaling
+        assertEquals(new Point(2, 6, -3), Transform.scaling(2, 3, -1).applyToPoint(p), "scaling wrong result");
+        // TC03: rotation by 90 degrees around the Z axis
+        assertEquals(new Point(-2, 1, 3), Transform.rotation(new Vector(0, 0, 1), 90).applyToPoint(p),
+                "rotation wrong result");
+        // TC04: composition - scaling then translation
+        assertEquals(new Point(3, 4, 6),
+                Transform.scaling(2).then(Transform.translation(new Vector(1, 0, 0))).applyToPoint(p),
+                "composition wrong result");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: identity
+        assertEquals(p, Transform.IDENTITY.applyToPoint(p), "identity must not move the point");
+        // TC11: zero scale factor
+        assertThrows(IllegalArgumentException.class, () -> Transform.scaling(1, 0, 1),
+                "zero scale factor must throw exception");
+    }
+
+    /** Test method for {@link primitives.Transform#inverse()}. */
+    @Test
+    void testInverse() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a composed transformation followed by its inverse returns the point
+        Transform t = Transform.rotation(new Vector(1, 1, 0), 30)
+                .then(Transform.scaling(2, 1, 3))
+                .then(Transform.translation(new Vector(-1, 4, 2)));
+        Point p = new Point(1, -2, 5);
+        assertEquals(p, t.inverse().applyToPoint(t.applyToPoint(p)), "inverse wrong result");
+    }
+
+    /** Test method for {@link primitives.Transform#applyToNormal(Vector)}. */
+    @Test
+    void testApplyToNormal() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the normal of the plane x + y = 0 stays orthogonal to it after a non uniform scaling
+        Transform t = Transform.scaling(2, 1, 1);
+        Vector n = t.applyToNormal(new Vector(1, 1, 0));
+        Vector inPlane = t.applyToVector(new Vector(1, -1, 0));
+        assertEquals(0, n.dotProduct(inPlane), 1e-10, "normal is not orthogonal to the surface");
+        assertEquals(1, n.length(), 1e-10, "normal is not normalized");
+    }
+}
@@ -18,7 +18,7 @@ class VectorTest {
         // ============ Equivalence Partitions Tests ==============
         // TC01: Test the constructor with valid values
         Vector v = new Vector(1, 2, 3);
-        assertEquals(new Double3(1, 2, 3), v.xyz, "ERROR: Vector constructor with parameters is not working correctly");
+        assertEquals(new Double3(1, 2, 3), new Double3(v.getX(), v.getY(), v.getZ()), "ERROR: Vector constructor with parameters is not working correctly");
         // ============ Boundary Values Tests ==============
         // TC02: Test the constructor with zero vector
         assertThrows(IllegalArgumentException.class, () -> new Vector(0, 0, 0), "ERROR: Vector constructor with zero vector did not throw an exception");
@@ -30,7 +30,7 @@ class VectorTest {
         // ============ Equivalence Partitions Tests ==============
         // TC01: Test the constructor with valid values
         Vector v = new Vector(new Double3(1, 2, 3));
-        assertEquals(new Double3(1, 2, 3), v.xyz, "ERROR: Vector constructor with parameters is not working correctly");
+        assertEquals(new Double3(1, 2, 3), new Double3(v.getX(), v.getY(), v.getZ()), "ERROR: Vector constructor with parameters is not working correctly");
         // ============ Boundary Values Tests ==============
         // TC02: Test the constructor with zero vector
         assertThrows(IllegalArgumentException.class, () -> new Vector(Double3.ZERO), "ERROR: Vector constructor with zero vector did not throw an exception");
@@ -131,5 +131,20 @@ class VectorTest {
         Vector v2 = new Vector(1, 2, 3);
         Vector v3 = new Vector(2, 4, 6);
         assertEquals(1, v2.normalize().dotProduct(v3.normalize()), "ERROR: Normalization should keep the direction of the vector");
+        // TC03: A normalized vector is not normalized again
+        Vector u = v2.normalize();
+        assertSame(u, u.normalize(), "ERROR: Normalization of a unit vector should return it");
+    }
+    /** Test method for {@link primitives.Vector#getOrthogonal()}. **/
+    @Test
+    void testGetOrthogonal() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Vectors with non-integer components
+        for (Vector v : new Vector[] { new Vector(1, 0.3, 0.2), new Vector(0.3, 0.3, 1), new Vector(0.3, 0.6, 0.2) })
+            assertEquals(0, v.dotProduct(v.getOrthogonal()), DELTA, "ERROR: getOrthogonal() of " + v + " is not orthogonal");
+        // ============ Boundary Values Tests ==============
+        // TC02: A vector on the X axis
+        assertEquals(0, new Vector(2.5, 0, 0).dotProduct(new Vector(2.5, 0, 0).getOrthogonal()), DELTA,
+                "ERROR: getOrthogonal() of a vector on the X axis is not orthogonal");
     }
 }
\ No newline at end of file
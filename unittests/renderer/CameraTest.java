@@ -1,12 +1,21 @@
 package renderer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 
+import geometries.Sphere;
 import primitives.*;
 import renderer.Camera;
+import scene.Scene;
 
 /**
  * Testing Camera Class
@@ -61,6 +70,90 @@ class CameraTest {
                 camera2.constructRay(3, 3, 0, 0), BAD_RAY);
     }
 
+    /**
+     * Test method for
+     * {@link renderer.Camera#constructRay(int, int, int, int, double, double)}.
+     */
+    @Test
+    void testConstructRayJitter() {
+        cameraBuilder.setDirection(new Vector(0, 0, -1), new Vector(0, -1, 0)).setVpSize(8, 8);
+        Camera camera1 = cameraBuilder.build();
+        Camera camera2 = cameraBuilder.setSampler(Sampler.halton(3)).build();
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: the jitter stays inside the pixel
+        Ray ray = camera1.constructRay(4, 4, 1, 1, 0, 0);
+        Vector direction = ray.getDirection().scale(10 / -ray.getDirection().getZ());
+        assertTrue(Math.abs(direction.getX() - 1) <= 1 && Math.abs(direction.getY() + 1) <= 1, BAD_RAY);
+        // EP02: the same arguments give the same ray, with the default and with a set sampler
+        assertEquals(ray, camera1.constructRay(4, 4, 1, 1, 0, 0), BAD_RAY);
+        assertEquals(camera2.constructRay(4, 4, 1, 1, 0.25, -0.25), camera2.constructRay(4, 4, 1, 1, 0.25, -0.25),
+                BAD_RAY);
+
+        // =============== Boundary Values Tests ==================
+        // BV01: the ray through the center of the pixel is jittered off it
+        assertNotEquals(camera1.constructRay(4, 4, 1, 1), ray, BAD_RAY);
+    }
+
+    /**
+     * Test method for the numbering of the jitter samples of
+     * {@link renderer.Camera.Builder#setAdaptiveSuperSampling(int)}.
+     */
+    @Test
+    void testAdaptiveSuperSamplingIndices() {
+        Scene scene = new Scene("Adaptive super sampling test scene");
+        scene.geometries.add(new Sphere(2, new Point(0, 0, -10)).setEmission(new Color(100, 0, 0)));
+        // the indices of the samples of each pixel, in the order they are drawn
+        Map<Integer, List<Long>> indices = new HashMap<>();
+        Sampler recorder = (col, row, index, dimension) -> {
+            if (dimension == 0) indices.computeIfAbsent(row * 100 + col, k -> new ArrayList<>()).add(index);
+            return 0.5;
+        };
+        cameraBuilder.setDirection(new Vector(0, 0, -1), new Vector(0, -1, 0)).setVpSize(8, 8)
+                .setResolution(10, 10).setMultithreading(0).setAdaptiveSuperSampling(3).setSampler(recorder)
+                .setRayTracer(scene, RayTracerType.SIMPLE).build().renderImage();
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: the samples of every pixel are numbered consecutively from zero, subdivided or not
+        assertEquals(100, indices.size(), "Every pixel must be sampled");
+        int subdivided = 0;
+        for (List<Long> pixel : indices.values()) {
+            for (int i = 0; i < pixel.size(); ++i)
+                assertEquals(i, pixel.get(i).longValue(), "The samples of a pixel must be numbered consecutively");
+            if (pixel.size() > 4) ++subdivided;
+        }
+        assertTrue(subdivided > 0, "The pixels on the edge of the sphere must be subdivided");
+    }
+
+    /**
+     * Test method for rendering by {@link renderer.Camera#VIRTUAL_THREADS} and {@link renderer.Camera#FORK_JOIN}.
+     */
+    @Test
+    void testRenderThreadModes() {
+        Scene scene = new Scene("Virtual threads test scene");
+        cameraBuilder.setDirection(new Vector(0, 0, -1), new Vector(0, -1, 0)).setVpSize(8, 8)
+                .setResolution(40, 40).setTileSize(4).setMultithreading(Camera.VIRTUAL_THREADS);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: a failure in a tile fails the whole rendering
+        scene.geometries.add(new Sphere(1, new Point(0, 0, -10)) {
+            @Override
+            public boolean calculateClosestHit(Ray ray, double tMin, Hit hit) {
+                throw new IllegalStateException("Failed tile");
+            }
+        });
+        Camera camera = cameraBuilder.setRayTracer(scene, RayTracerType.SIMPLE).build();
+        assertThrows(IllegalStateException.class, camera::renderImage, "A failed tile must fail the rendering");
+
+        // EP02: a failure in a block fails the whole rendering on the fork-join pool too
+        Camera camera2 = cameraBuilder.setMultithreading(Camera.FORK_JOIN).build();
+        assertThrows(IllegalStateException.class, camera2::renderImage, "A failed block must fail the rendering");
+
+        // =============== Boundary Values Tests ==================
+        // BV01: invalid multithreading mode below the fork-join mode
+        assertThrows(IllegalArgumentException.class, () -> cameraBuilder.setMultithreading(Camera.FORK_JOIN - 1));
+    }
+
     @Test
     void testBuilder() {
         cameraBuilder.setVpSize(4, 4).setResolution(2, 2);
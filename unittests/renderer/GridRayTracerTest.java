@@ -0,0 +1,84 @@
+package renderer;
+
+import geometries.Intersectable.Intersection;
+import geometries.Plane;
+import geometries.Sphere;
+import geometries.Triangle;
+import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import scene.Scene;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the uniform grid ray tracer
+ */
+class GridRayTracerTest {
+    /** Default constructor to satisfy JavaDoc generator */
+    GridRayTracerTest() { /* to satisfy JavaDoc generator */ }
+
+    /**
+     * Test method for {@link renderer.GridRayTracer#findClosestIntersection(Ray)} and the other queries
+     * of the tracer through the grid.
+     */
+    @Test
+    void testFindClosestIntersection() {
+        Scene scene = new Scene("Grid scene");
+        for (int i = 0; i < 10; ++i)
+            for (int j = 0; j < 10; ++j) {
+                scene.geometries.add(new Sphere(new Point(i * 10, j * 10, 0), 3));
+                scene.geometries.add(new Triangle(new Point(i * 10, j * 10, 20),
+                        new Point(i * 10 + 8, j * 10, 20), new Point(i * 10, j * 10 + 8, 25)));
+            }
+        scene.geometries.add(new Plane(new Point(0, 0, -10), new Vector(0, 0, 1)));
+        SimpleRayTracer simple = new SimpleRayTracer(scene);
+        GridRayTracer grid = new GridRayTracer(scene);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Rays from above the scene in many directions find the same hits as without the grid
+        Point head = new Point(45, 45, 100);
+        for (int i = -10; i <= 10; ++i)
+            for (int j = -10; j <= 10; ++j) {
+                Ray ray = new Ray(head, new Vector(i * 0.07, j * 0.07, -1));
+                Intersection expected = simple.findClosestIntersection(ray);
+                Intersection actual = grid.findClosestIntersection(ray);
+                assertEquals(expected.point, actual.point, "Wrong closest intersection through the grid");
+            }
+        // TC02: Ray inside the grid crossing many cells
+        Ray ray = new Ray(new Point(-5, 0, 0), new Vector(1, 0, 0));
+        assertEquals(new Point(-3, 0, 0), grid.findClosestIntersection(ray).point,
+                "Wrong closest intersection for a ray starting inside the grid");
+        assertTrue(grid.isOccluded(ray, 100), "The spheres on the way must block the ray");
+        assertFalse(grid.isOccluded(ray, 1), "Nothing blocks the ray before the first sphere");
+        assertEquals(simple.findTransmittance(ray, 100), grid.findTransmittance(ray, 100),
+                "Wrong transmittance through the grid");
+        assertEquals(Double3.ONE, grid.findTransmittance(ray, 1), "Wrong transmittance before the first sphere");
+        // TC03: A beam through the grid finds the same hits as the rays one by one
+        List<Ray> beam = List.of(ray, new Ray(head, new Vector(0.1, 0.1, -1)), new Ray(head, new Vector(0, 1, 0)));
+        Intersection[] hits = grid.findClosestIntersections(beam);
+        for (int i = 0; i < beam.size(); ++i) {
+            Intersection expected = simple.findClosestIntersection(beam.get(i));
+            if (expected == null) assertNull(hits[i], "Wrong beam intersection through the grid");
+            else assertEquals(expected.point, hits[i].point, "Wrong beam intersection through the grid");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Ray between the rows hits only the unbounded plane
+        ray = new Ray(new Point(5, 5, 10), new Vector(0, 0, -1));
+        assertEquals(new Point(5, 5, -10), grid.findClosestIntersection(ray).point,
+                "Wrong intersection with the unbounded plane");
+        // TC12: Ray that misses the scene
+        assertNull(grid.findClosestIntersection(new Ray(new Point(0, 0, 100), new Vector(0, 1, 0))),
+                "Ray missing the scene must not find an intersection");
+        // TC13: A geometry added after rays were traced is found
+        scene.geometries.add(new Sphere(new Point(0, 200, 100), 5));
+        assertEquals(new Point(0, 195, 100),
+                grid.findClosestIntersection(new Ray(new Point(0, 0, 100), new Vector(0, 1, 0))).point,
+                "A geometry added after the grid was built must be found");
+    }
+}
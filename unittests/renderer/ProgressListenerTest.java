@@ -0,0 +1,71 @@
+package renderer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.*;
+import scene.Scene;
+
+/**
+ * Testing the progress reports of rendering
+ */
+class ProgressListenerTest {
+    /** Camera builder for the tests */
+    private final Camera.Builder cameraBuilder = Camera.getBuilder()
+            .setRayTracer(new Scene("Progress test scene"), RayTracerType.SIMPLE)
+            .setLocation(Point.ZERO)
+            .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+            .setVpDistance(10).setVpSize(8, 8)
+            .setResolution(20, 10);
+
+    /**
+     * Test method for the math of {@link ProgressListener.Progress}.
+     */
+    @Test
+    void testProgress() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: a quarter of the pixels in one second
+        ProgressListener.Progress progress = new ProgressListener.Progress(25, 100, 50, Duration.ofSeconds(1));
+        assertEquals(25, progress.percentage(), 1e-10, "Bad percentage");
+        assertEquals(50, progress.raysPerSecond(), 1e-10, "Bad rate of rays");
+        assertEquals(Duration.ofSeconds(3), progress.eta(), "Bad estimated time");
+        assertTrue(!progress.isDone(), "Progress must not be done");
+
+        // =============== Boundary Values Tests ==================
+        // BV01: no pixels rendered yet - no estimation
+        assertNull(new ProgressListener.Progress(0, 100, 0, Duration.ZERO).eta(), "Estimated time without pixels");
+        // BV02: all the pixels rendered
+        progress = new ProgressListener.Progress(100, 100, 100, Duration.ofSeconds(2));
+        assertTrue(progress.isDone(), "Progress must be done");
+        assertEquals(Duration.ZERO, progress.eta(), "Bad estimated time");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera.Builder#addProgressListener(ProgressListener)}.
+     */
+    @Test
+    void testRenderProgress() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: the listeners receive the complete progress at the end of rendering, in every mode
+        for (int threads : new int[] { 0, -1, 3, Camera.VIRTUAL_THREADS, Camera.FORK_JOIN }) {
+            List<ProgressListener.Progress> reports = new CopyOnWriteArrayList<>();
+            cameraBuilder.addProgressListener(reports::add).setMultithreading(threads).build().renderImage();
+            ProgressListener.Progress last = reports.get(reports.size() - 1);
+            assertTrue(last.isDone(), "The last progress must be complete");
+            assertEquals(200, last.pixels(), "Bad amount of pixels");
+            assertEquals(200, last.rays(), "Bad amount of rays");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // BV01: null listener
+        assertThrows(IllegalArgumentException.class, () -> cameraBuilder.addProgressListener(null));
+    }
+}
@@ -0,0 +1,71 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the samplers
+ */
+class SamplerTest {
+    /** Default constructor to satisfy JavaDoc generator */
+    SamplerTest() { /* to satisfy JavaDoc generator */ }
+
+    /**
+     * Test method for {@link renderer.Sampler#random(long)}.
+     */
+    @Test
+    void testRandom() {
+        Sampler sampler = Sampler.random(5);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: samples are in [0, 1) and spread over it
+        double sum = 0;
+        for (int i = 0; i < 10000; ++i) {
+            double sample = sampler.get(i % 100, i / 100, i, i % 2);
+            assertTrue(sample >= 0 && sample < 1, "sample out of range");
+            sum += sample;
+        }
+        assertEquals(0.5, sum / 10000, 0.02, "samples are not uniform");
+        // TC02: a sample depends only on its seed and coordinates
+        assertEquals(sampler.get(3, 4, 5, 1), Sampler.random(5).get(3, 4, 5, 1),
+                "same coordinates must give the same sample");
+        assertNotEquals(sampler.get(3, 4, 5, 1), Sampler.random(6).get(3, 4, 5, 1),
+                "different seeds must give different samples");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: neighbouring pixels, indices and dimensions give different samples
+        double sample = sampler.get(0, 0, 0, 0);
+        assertNotEquals(sample, sampler.get(1, 0, 0, 0), "different columns must give different samples");
+        assertNotEquals(sample, sampler.get(0, 1, 0, 0), "different rows must give different samples");
+        assertNotEquals(sample, sampler.get(0, 0, 1, 0), "different indices must give different samples");
+        assertNotEquals(sample, sampler.get(0, 0, 0, 1), "different dimensions must give different samples");
+    }
+
+    /**
+     * Test method for {@link renderer.Sampler#halton(long)}.
+     */
+    @Test
+    void testHalton() {
+        Sampler sampler = Sampler.halton(5);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: consecutive samples of a pixel fall into distinct strata - 4 quarters in base 2
+        boolean[] quarters = new boolean[4];
+        for (int i = 0; i < 4; ++i) {
+            double sample = sampler.get(7, 8, i, 0);
+            assertTrue(sample >= 0 && sample < 1, "sample out of range");
+            quarters[(int) (sample * 4)] = true;
+        }
+        for (boolean quarter : quarters) assertTrue(quarter, "samples must fill the quarters");
+        // TC02: 3 thirds in base 3 for the second dimension
+        boolean[] thirds = new boolean[3];
+        for (int i = 0; i < 3; ++i) thirds[(int) (sampler.get(7, 8, i, 1) * 3)] = true;
+        for (boolean third : thirds) assertTrue(third, "samples must fill the thirds");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: pixels shift the sequence differently
+        assertNotEquals(sampler.get(0, 0, 0, 0), sampler.get(1, 0, 0, 0),
+                "different pixels must be shifted differently");
+    }
+}
@@ -0,0 +1,50 @@
+package renderer;
+
+import geometries.Plane;
+import geometries.Sphere;
+import lighting.PointLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Testing the simple ray tracer
+ */
+class SimpleRayTracerTest {
+    /** Default constructor to satisfy JavaDoc generator */
+    SimpleRayTracerTest() { /* to satisfy JavaDoc generator */ }
+
+    /**
+     * Test method for {@link renderer.SimpleRayTracer#prepare()}.
+     */
+    @Test
+    void testPrepare() {
+        Scene scene = new Scene("Shadow scene");
+        Material blockerMaterial = new Material();
+        scene.geometries.add(new Plane(new Point(0, 0, 0), new Vector(0, 0, 1))
+                        .setMaterial(new Material().setKd(0.5)),
+                new Sphere(1, new Point(0, 0, 5)).setMaterial(blockerMaterial));
+        scene.lights.add(new PointLight(new Color(100, 100, 100), new Point(0, 0, 10)));
+        // a ray to the floor under the blocker, passing beside it
+        Ray ray = new Ray(new Point(5, 0, 20), new Vector(-5, 0, -20));
+        SimpleRayTracer tracer = new SimpleRayTracer(scene);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: An opaque blocker shadows the floor
+        tracer.prepare();
+        assertEquals(Color.BLACK, tracer.traceRay(ray), "The opaque blocker must shadow the floor");
+        // TC02: The blocker made transparent in place lets the light through on the next rendering
+        // (the shadow ray crosses the blocker twice)
+        blockerMaterial.setKt(0.8);
+        tracer.prepare();
+        assertEquals(new Color(32, 32, 32), tracer.traceRay(ray),
+                "The light must pass the blocker that became transparent");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A tracer that was not prepared calculates the transparency of the blocker
+        assertEquals(new Color(32, 32, 32), new SimpleRayTracer(scene).traceRay(ray),
+                "A tracer that was not prepared must calculate the transparency");
+    }
+}
@@ -0,0 +1,176 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the tile scheduler
+ */
+class TileSchedulerTest {
+    /** Default constructor to satisfy JavaDoc generator */
+    TileSchedulerTest() { /* to satisfy JavaDoc generator */ }
+
+    /**
+     * Test method for {@link renderer.TileScheduler#nextTile(int)} and
+     * {@link renderer.TileScheduler#forEachPixel(int, TileScheduler.PixelAction)}.
+     */
+    @Test
+    void testScheduling() throws InterruptedException {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: threads together visit every pixel of a non-square image exactly once
+        TileScheduler scheduler = new TileScheduler(37, 53, 6, 4);
+        AtomicIntegerArray visits = new AtomicIntegerArray(37 * 53);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; ++i) {
+            int worker = i;
+            threads.add(new Thread(() -> {
+                int tile;
+                while ((tile = scheduler.nextTile(worker)) >= 0)
+                    scheduler.forEachPixel(tile, (col, row) -> visits.incrementAndGet(row * 53 + col));
+            }));
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+        for (int i = 0; i < visits.length(); ++i)
+            assertEquals(1, visits.get(i), "pixel " + i + " must be visited once");
+
+        // TC02: the pixels of a tile are visited in Morton order
+        List<Integer> order = new ArrayList<>();
+        new TileScheduler(4, 4, 4, 1).forEachPixel(0, (col, row) -> order.add(row * 4 + col));
+        assertEquals(List.of(0, 1, 4, 5, 2, 3, 6, 7, 8, 9, 12, 13, 10, 11, 14, 15), order, "wrong order of pixels");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: a single worker steals all the tiles of the others
+        TileScheduler stealing = new TileScheduler(10, 10, 5, 3);
+        boolean[] taken = new boolean[4];
+        int tile;
+        while ((tile = stealing.nextTile(2)) >= 0) {
+            assertFalse(taken[tile], "tile " + tile + " taken twice");
+            taken[tile] = true;
+        }
+        for (boolean t : taken) assertTrue(t, "a tile was not taken");
+        assertEquals(-1, stealing.nextTile(0), "no tiles must be left");
+        // TC11: more workers than tiles
+        assertEquals(0, new TileScheduler(1, 1, 16, 3).nextTile(1), "the only tile must be stolen");
+        assertThrows(IllegalArgumentException.class, () -> new TileScheduler(10, 10, 0, 1), "zero tile size");
+    }
+
+    /**
+     * Test method for {@link renderer.TileScheduler#TileScheduler(int, int, int, int, TileScheduler.PixelCost)}.
+     */
+    @Test
+    void testCostScheduling() {
+        // the top left corner of 16x16 pixels is expensive
+        TileScheduler.PixelCost cost = (col, row) -> col < 16 && row < 16 ? 100 : 1;
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the expensive tile is cut, and the tiles are taken from the most expensive down
+        TileScheduler scheduler = new TileScheduler(48, 64, 32, 1, cost);
+        int[] visits = new int[48 * 64];
+        List<Integer> sizes = new ArrayList<>();
+        int tile;
+        while ((tile = scheduler.nextTile(0)) >= 0) {
+            int[] size = { 0 };
+            scheduler.forEachPixel(tile, (col, row) -> {
+                ++size[0];
+                ++visits[row * 64 + col];
+            });
+            sizes.add(size[0]);
+        }
+        List<Integer> expected = new ArrayList<>(Collections.nCopies(16, 64));
+        expected.addAll(List.of(1024, 512, 512));
+        assertEquals(expected, sizes, "wrong tiles");
+        for (int i = 0; i < visits.length; ++i)
+            assertEquals(1, visits[i], "pixel " + i + " must be visited once");
+
+        // TC02: the tiles are dealt to the workers - each starts with its share of the expensive ones
+        TileScheduler dealing = new TileScheduler(48, 64, 32, 2, cost);
+        for (int worker = 0; worker < 2; ++worker) {
+            int[] size = { 0 };
+            dealing.forEachPixel(dealing.nextTile(worker), (col, row) -> ++size[0]);
+            assertEquals(64, size[0], "worker " + worker + " must start with a part of the expensive tile");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC10: tiles of a size that is not a power of 2 at the edges of the image
+        TileScheduler edges = new TileScheduler(37, 53, 20, 3, cost);
+        int[] edgeVisits = new int[37 * 53];
+        for (int worker = 0; worker < 3; ++worker)
+            while ((tile = edges.nextTile(worker)) >= 0)
+                edges.forEachPixel(tile, (col, row) -> ++edgeVisits[row * 53 + col]);
+        for (int i = 0; i < edgeVisits.length; ++i)
+            assertEquals(1, edgeVisits[i], "pixel " + i + " must be visited once");
+    }
+
+    /**
+     * Test method for {@link renderer.TileScheduler#predict()}.
+     */
+    @Test
+    void testPredict() throws InterruptedException {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the workers share the pre-pass - each pixel of it is traced once, or twice to warm up a worker
+        AtomicIntegerArray samples = new AtomicIntegerArray(64 * 64);
+        TileScheduler scheduler = new TileScheduler(64, 64, 8, 4, (col, row) -> {
+            samples.incrementAndGet(row * 64 + col);
+            return col < 16 ? 100 : 1;
+        });
+        AtomicIntegerArray visits = new AtomicIntegerArray(64 * 64);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; ++i) {
+            int worker = i;
+            threads.add(new Thread(() -> {
+                int tile;
+                while ((tile = scheduler.nextTile(worker)) >= 0)
+                    scheduler.forEachPixel(tile, (col, row) -> visits.incrementAndGet(row * 64 + col));
+            }));
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+        int warmUps = 0;
+        for (int row = 0; row < 64; ++row)
+            for (int col = 0; col < 64; ++col) {
+                int traced = samples.get(row * 64 + col);
+                if (col % 8 == 4 && row % 8 == 4) {
+                    assertTrue(traced == 1 || traced == 2, "pre-pass pixel must be traced once or twice");
+                    warmUps += traced - 1;
+                } else
+                    assertEquals(0, traced, "only the pre-pass pixels must be traced");
+                assertEquals(1, visits.get(row * 64 + col), "pixel must be visited once");
+            }
+        assertTrue(warmUps <= 4, "each worker must warm up once at most");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: a failure in the pre-pass is thrown to its worker, and the other workers find no tiles
+        TileScheduler failing = new TileScheduler(64, 64, 8, 3, (col, row) -> {
+            if (col == 4 && row == 4) throw new IllegalStateException("Failed pre-pass");
+            return 1;
+        });
+        AtomicIntegerArray results = new AtomicIntegerArray(3);
+        threads.clear();
+        for (int i = 0; i < 3; ++i) {
+            int worker = i;
+            threads.add(new Thread(() -> {
+                try {
+                    results.set(worker, failing.nextTile(worker));
+                } catch (IllegalStateException e) {
+                    results.set(worker, -2);
+                }
+            }));
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join(10_000);
+        int failed = 0;
+        for (int i = 0; i < 3; ++i) {
+            assertFalse(threads.get(i).isAlive(), "worker " + i + " must not wait for ever");
+            assertTrue(results.get(i) < 0, "worker " + i + " must not find a tile");
+            if (results.get(i) == -2) ++failed;
+        }
+        assertEquals(1, failed, "the failure must be thrown to a single worker");
+    }
+}